@@ -0,0 +1,107 @@
+package com.example.server.benchmark;
+
+import com.example.server.ServerApplication;
+import com.example.server.dto.order.OrderRequest;
+import com.example.server.dto.order.OrderResponse;
+import com.example.server.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderService#createOrder} end to end against a throwaway PostGIS (Testcontainers), with
+ * {@code app.tax.single-order.fast-path} on (in-memory resolve, one INSERT ... RETURNING) and off
+ * (insert, CALCULATE_SINGLE_SQL, refresh). Points cycle through a fixed set across NY State, so the
+ * resolver's coordinate cache sees both hits and misses.
+ * Sampled per call, so the report carries the latency percentiles a POST /api/v1/orders sees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CreateOrderBenchmark {
+
+    private static final DockerImageName POSTGIS =
+            DockerImageName.parse("postgis/postgis:16-3.4").asCompatibleSubstituteFor("postgres");
+
+    private static final int POINTS = 4096;
+
+    @Param({"true", "false"})
+    public boolean fastPath;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private Long userId;
+
+    private OrderRequest[] requests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        postgres = new PostgreSQLContainer<>(POSTGIS);
+        postgres.start();
+
+        context = new SpringApplicationBuilder(ServerApplication.class)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "app.tax.single-order.fast-path=" + fastPath,
+                        "server.port=0")
+                .run();
+
+        orderService = context.getBean(OrderService.class);
+        userId = context.getBean(JdbcTemplate.class)
+                .queryForObject("SELECT id FROM users ORDER BY id LIMIT 1", Long.class);
+
+        Random rng = new Random(42L);
+        String timestamp = Long.toString(Instant.now().toEpochMilli());
+        requests = new OrderRequest[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            requests[i] = OrderRequest.builder()
+                    .latitude(BigDecimal.valueOf(40.5 + rng.nextDouble() * 4.5).setScale(7, RoundingMode.HALF_UP))
+                    .longitude(BigDecimal.valueOf(-79.5 + rng.nextDouble() * 7.5).setScale(7, RoundingMode.HALF_UP))
+                    .timestamp(timestamp)
+                    .subtotal(BigDecimal.valueOf(10 + rng.nextDouble() * 490).setScale(2, RoundingMode.HALF_UP)
+                            .toPlainString())
+                    .build();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        if (context != null) context.close();
+        if (postgres != null) postgres.stop();
+    }
+
+    @Benchmark
+    public OrderResponse createOrder() {
+        OrderRequest request = requests[next];
+        next = (next + 1) % POINTS;
+        return orderService.createOrder(request, userId);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.server.benchmark;
+
+import com.example.server.dto.order.ImportRowError;
+import com.example.server.enums.ImportErrorReason;
+import com.example.server.util.CsvUtils;
+import com.example.server.util.ImportErrorCsvWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error report cell escaping: {@link CsvUtils#cell} (builds the quoted string) against
+ * {@link CsvUtils#writeCell} (writes through), and a whole {@link ImportErrorCsvWriter} row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvCellBenchmark {
+
+    @Param({"plain", "quoted"})
+    public String content;
+
+    private final Writer sink = Writer.nullWriter();
+    private String value;
+    private ImportRowError error;
+    private ImportErrorCsvWriter rowWriter;
+
+    @Setup
+    public void setUp() throws IOException {
+        String rawRow = "plain".equals(content)
+                ? "1042 40.7127753 -74.0059728 2025-03-01T10:00:00Z 50.00"
+                : "1042,40.7127753,-74.0059728,\"2025-03-01 10:00:00\",\"1,050.00\"";
+        value = rawRow;
+        error = ImportRowError.builder()
+                .rowNumber(1042)
+                .externalId(1042L)
+                .reason(ImportErrorReason.NEGATIVE_SUBTOTAL)
+                .field("subtotal")
+                .message("subtotal must be > 0, got: -5.00")
+                .rawRow(rawRow)
+                .build();
+        rowWriter = new ImportErrorCsvWriter(OutputStream.nullOutputStream(), false);
+    }
+
+    @Benchmark
+    public String cell() {
+        return CsvUtils.cell(value);
+    }
+
+    @Benchmark
+    public void writeCell() throws IOException {
+        CsvUtils.writeCell(sink, value);
+    }
+
+    @Benchmark
+    public void errorRow() {
+        rowWriter.accept(error);
+    }
+}
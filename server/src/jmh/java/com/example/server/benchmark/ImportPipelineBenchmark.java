@@ -0,0 +1,137 @@
+package com.example.server.benchmark;
+
+import com.example.server.ServerApplication;
+import com.example.server.dto.order.ImportableRow;
+import com.example.server.repository.native_query.OrderNativeRepository;
+import com.example.server.service.TaxCalculationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end against a throwaway PostGIS (Testcontainers, same image as docker-compose): the
+ * application context starts on it with the regular migrations, geodata load and seed, then each
+ * invocation inserts a fresh set of import rows through {@link OrderNativeRepository#insertImportRows},
+ * the path the CSV import takes, with {@code app.import.insert-mode} set from {@code insertMode}, and
+ * calculates them with {@link TaxCalculationService#calculatePendingOrders()}; {@code insertRows}
+ * isolates the insert.
+ * Single-shot time per invocation; divide by {@code rows} for rows/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ImportPipelineBenchmark {
+
+    private static final DockerImageName POSTGIS =
+            DockerImageName.parse("postgis/postgis:16-3.4").asCompatibleSubstituteFor("postgres");
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"batch", "copy"})
+    public String insertMode;
+
+    @Param({"sql", "in-memory"})
+    public String engine;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private OrderNativeRepository orderNativeRepository;
+    private TaxCalculationService taxCalculationService;
+    private JdbcTemplate jdbc;
+    private Long userId;
+
+    private List<ImportableRow> batch;
+    private String importBatchId;
+
+    @Setup(Level.Trial)
+    public void startDatabase() {
+        postgres = new PostgreSQLContainer<>(POSTGIS);
+        postgres.start();
+
+        context = new SpringApplicationBuilder(ServerApplication.class)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl() + "&reWriteBatchedInserts=true",
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "app.tax.engine=" + engine,
+                        "app.import.insert-mode=" + insertMode,
+                        "server.port=0")
+                .run();
+
+        orderNativeRepository = context.getBean(OrderNativeRepository.class);
+        taxCalculationService = context.getBean(TaxCalculationService.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+        userId = jdbc.queryForObject("SELECT id FROM users ORDER BY id LIMIT 1", Long.class);
+
+        // Leftover ADDED rows from the seed would otherwise be counted in the first invocation.
+        taxCalculationService.calculatePendingOrders();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareRows() {
+        Random rng = new Random(42L);
+        long now = Instant.now().toEpochMilli();
+        batch = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            batch.add(new ImportableRow(
+                    i,
+                    null,
+                    null,
+                    BigDecimal.valueOf(40.5 + rng.nextDouble() * 4.5).setScale(7, RoundingMode.HALF_UP),
+                    BigDecimal.valueOf(-79.5 + rng.nextDouble() * 7.5).setScale(7, RoundingMode.HALF_UP),
+                    now - rng.nextInt(86_400_000),
+                    BigDecimal.valueOf(10 + rng.nextDouble() * 490).setScale(2, RoundingMode.HALF_UP)));
+        }
+        importBatchId = UUID.randomUUID().toString();
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteRows() {
+        jdbc.update("DELETE FROM orders WHERE import_batch_id = ?", importBatchId);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopDatabase() {
+        if (context != null) context.close();
+        if (postgres != null) postgres.stop();
+    }
+
+    @Benchmark
+    public int insertRows() {
+        return orderNativeRepository.insertImportRows(batch, userId, importBatchId);
+    }
+
+    @Benchmark
+    public int insertAndCalculate() {
+        orderNativeRepository.insertImportRows(batch, userId, importBatchId);
+        return taxCalculationService.calculatePendingOrders();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.server.benchmark;
+
+import com.example.server.util.OrderCsvParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows/s through {@link OrderCsvParser#parseForImport} at different shares of invalid rows.
+ * Invalid rows cycle through the validation failures the parser reports.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderCsvParserBenchmark {
+
+    private static final int ROWS = 50_000;
+    private static final int CHUNK_SIZE = 5_000;
+
+    private static final String[] INVALID_ROWS = {
+            "%d,,-73.9,2025-03-01 10:00:00,50.00",
+            "%d,40.7,abc,2025-03-01 10:00:00,50.00",
+            "%d,40.7,-73.9,not-a-date,50.00",
+            "%d,95.0,-73.9,2025-03-01 10:00:00,50.00",
+            "%d,40.7,-73.9,2025-03-01 10:00:00,-5.00",
+    };
+
+    @Param({"0", "0.01", "0.1", "0.5"})
+    public double errorRatio;
+
+    private final OrderCsvParser parser = new OrderCsvParser();
+    private MockMultipartFile file;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(42L);
+        StringBuilder csv = new StringBuilder(ROWS * 64);
+        csv.append("id,latitude,longitude,timestamp,subtotal\n");
+        for (int i = 1; i <= ROWS; i++) {
+            if (rng.nextDouble() < errorRatio) {
+                csv.append(String.format(INVALID_ROWS[i % INVALID_ROWS.length], i));
+            } else {
+                csv.append(i).append(',')
+                        .append(String.format("%.7f", 40.5 + rng.nextDouble()))
+                        .append(',')
+                        .append(String.format("%.7f", -74.2 + rng.nextDouble()))
+                        .append(",2025-03-01 10:00:00.")
+                        .append(rng.nextInt(1_000_000))
+                        .append(',')
+                        .append(String.format("%.2f", 10 + rng.nextDouble() * 490));
+            }
+            csv.append('\n');
+        }
+        file = new MockMultipartFile("file", "orders.csv", "text/csv",
+                csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int parseForImport(Blackhole bh) {
+        return parser.parseForImport(file, CHUNK_SIZE, bh::consume);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.server.benchmark;
+
+import com.example.server.ServerApplication;
+import com.example.server.dto.order.ImportableRow;
+import com.example.server.dto.order.OrderFilterParams;
+import com.example.server.enums.ExportFormat;
+import com.example.server.repository.native_query.OrderNativeRepository;
+import com.example.server.service.OrderService;
+import com.example.server.service.TaxCalculationService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderService#exportOrders} over a seeded, calculated orders table in a throwaway PostGIS
+ * (Testcontainers), written to a stream that discards everything, so the figure is query, mapping
+ * and serialisation without the network. The {@code rows} counter reports exported rows/s alongside
+ * the export/s of the primary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class OrderExportBenchmark {
+
+    private static final DockerImageName POSTGIS =
+            DockerImageName.parse("postgis/postgis:16-3.4").asCompatibleSubstituteFor("postgres");
+
+    private static final int SEED_CHUNK = 50_000;
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"csv", "ndjson"})
+    public String format;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private ExportFormat exportFormat;
+    private long tableRows;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RowCounter {
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void seed() {
+        postgres = new PostgreSQLContainer<>(POSTGIS);
+        postgres.start();
+
+        context = new SpringApplicationBuilder(ServerApplication.class)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl() + "&reWriteBatchedInserts=true",
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "app.import.insert-mode=copy",
+                        "server.port=0")
+                .run();
+
+        orderService = context.getBean(OrderService.class);
+        exportFormat = ExportFormat.from(format);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        OrderNativeRepository orderNativeRepository = context.getBean(OrderNativeRepository.class);
+        Long userId = jdbc.queryForObject("SELECT id FROM users ORDER BY id LIMIT 1", Long.class);
+
+        Random rng = new Random(42L);
+        long now = Instant.now().toEpochMilli();
+        String importBatchId = UUID.randomUUID().toString();
+        long existing = jdbc.queryForObject("SELECT COUNT(*) FROM orders", Long.class);
+        for (long seeded = existing; seeded < rows; ) {
+            int size = (int) Math.min(SEED_CHUNK, rows - seeded);
+            List<ImportableRow> chunk = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                chunk.add(new ImportableRow(
+                        (int) (seeded + i + 1),
+                        null,
+                        null,
+                        BigDecimal.valueOf(40.5 + rng.nextDouble() * 4.5).setScale(7, RoundingMode.HALF_UP),
+                        BigDecimal.valueOf(-79.5 + rng.nextDouble() * 7.5).setScale(7, RoundingMode.HALF_UP),
+                        now - rng.nextInt(86_400_000),
+                        BigDecimal.valueOf(10 + rng.nextDouble() * 490).setScale(2, RoundingMode.HALF_UP)));
+            }
+            seeded += orderNativeRepository.insertImportRows(chunk, userId, importBatchId);
+        }
+        context.getBean(TaxCalculationService.class).calculatePendingOrders();
+
+        tableRows = jdbc.queryForObject("SELECT COUNT(*) FROM orders", Long.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopDatabase() {
+        if (context != null) context.close();
+        if (postgres != null) postgres.stop();
+    }
+
+    @Benchmark
+    public void exportOrders(RowCounter counter) throws IOException {
+        orderService.exportOrders(new OrderFilterParams(), exportFormat, OutputStream.nullOutputStream());
+        counter.rows += tableRows;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.server.benchmark;
+
+import com.example.server.dto.order.OrderResponse;
+import com.example.server.dto.order.SpecialRateEntry;
+import com.example.server.entity.Order;
+import com.example.server.enums.OrderStatus;
+import com.example.server.mapper.OrderMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderMapper#toResponse(Order)} for a fully calculated order, as listed and exported.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderMapperBenchmark {
+
+    private final OrderMapper mapper = new OrderMapper();
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        order = Order.builder()
+                .id(123_456L)
+                .externalId(98_765L)
+                .latitude(new BigDecimal("40.7127753"))
+                .longitude(new BigDecimal("-74.0059728"))
+                .timestamp(1_740_823_200_000L)
+                .subtotal(new BigDecimal("123.4500"))
+                .status(OrderStatus.CALCULATED)
+                .createdBy(1L)
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .compositeTaxRate(new BigDecimal("0.088750"))
+                .taxAmount(new BigDecimal("10.9562"))
+                .totalAmount(new BigDecimal("134.4062"))
+                .stateRate(new BigDecimal("0.040000"))
+                .countyRate(new BigDecimal("0.045000"))
+                .cityRate(BigDecimal.ZERO)
+                .specialRates(List.of(new SpecialRateEntry("MCTD", new BigDecimal("0.003750"))))
+                .jurisdictions(Map.of("state", "New York", "county", "New York County", "special", List.of("MCTD")))
+                .build();
+    }
+
+    @Benchmark
+    public OrderResponse toResponse() {
+        return mapper.toResponse(order);
+    }
+}
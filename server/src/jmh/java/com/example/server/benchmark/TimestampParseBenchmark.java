@@ -0,0 +1,54 @@
+package com.example.server.benchmark;
+
+import com.example.server.util.OrderCsvParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderCsvParser#parseTimestamp} for every accepted format. Formats are tried in order,
+ * so the later ones also pay for the exceptions of the earlier attempts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimestampParseBenchmark {
+
+    private static final Map<String, String> SAMPLES = Map.of(
+            "epochMillis", "1740823200000",
+            "offset", "2025-03-01T10:00:00+02:00",
+            "instant", "2025-03-01T10:00:00Z",
+            "postgres", "2025-03-01 10:00:00",
+            "postgresFraction", "2025-03-01 10:00:00.123456"
+    );
+
+    @Param({"epochMillis", "offset", "instant", "postgres", "postgresFraction"})
+    public String format;
+
+    private final OrderCsvParser parser = new OrderCsvParser();
+    private String value;
+
+    @Setup
+    public void setUp() {
+        value = SAMPLES.get(format);
+    }
+
+    @Benchmark
+    public long parseTimestamp() {
+        return parser.parseTimestamp(value);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.server.config;
+
+import com.example.server.enums.TaxEngine;
+import com.example.server.service.JurisdictionResolver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the in-memory jurisdiction index once geodata and rates are in place, so the first
+ * POST /api/v1/orders on the fast path does not build it inside the request.
+ */
+@Slf4j
+@Component
+@Order(4)
+public class JurisdictionIndexWarmer implements ApplicationRunner {
+
+    private final JurisdictionResolver jurisdictionResolver;
+    private final boolean fastSingleOrder;
+    private final TaxEngine engine;
+
+    public JurisdictionIndexWarmer(JurisdictionResolver jurisdictionResolver,
+                                   @Value("${app.tax.single-order.fast-path:true}") boolean fastSingleOrder,
+                                   @Value("${app.tax.engine:sql}") TaxEngine engine) {
+        this.jurisdictionResolver = jurisdictionResolver;
+        this.fastSingleOrder = fastSingleOrder;
+        this.engine = engine;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!fastSingleOrder && engine != TaxEngine.IN_MEMORY) return;
+
+        long started = System.currentTimeMillis();
+        jurisdictionResolver.warmUp();
+        log.info("Jurisdiction index warmed in {} ms.", System.currentTimeMillis() - started);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.server.config;
+
+import com.example.server.service.OrderPartitionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes sure the upcoming order partitions exist before the seeders and resumed calculations write.
+ * A failed run does not stop startup: rows wait in orders_default and the scheduled run retries.
+ */
+@Slf4j
+@Component
+@Order(0)
+@RequiredArgsConstructor
+public class OrderPartitionRunner implements ApplicationRunner {
+
+    private final OrderPartitionService orderPartitionService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            orderPartitionService.maintain();
+        } catch (RuntimeException e) {
+            log.error("Orders partition maintenance failed at startup; the scheduled run will retry: {}",
+                    e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.server.controller;
+
+import com.example.server.dto.jurisdiction.JurisdictionDto;
+import com.example.server.service.JurisdictionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/jurisdictions")
+@RequiredArgsConstructor
+@Tag(name = "Jurisdictions", description = "Jurisdiction lookup API")
+public class JurisdictionController {
+
+    private final JurisdictionService jurisdictionService;
+
+    @Operation(summary = "Autocomplete jurisdictions by name",
+               description = "Substring and trigram-similarity match on the jurisdiction name. type: state | county | city | special. " +
+                             "Pass the returned ids to GET /api/v1/orders as stateId, countyId, cityId or specialId.")
+    @GetMapping("/search")
+    public List<JurisdictionDto> search(@RequestParam String q,
+                                        @RequestParam(required = false) String type,
+                                        @RequestParam(defaultValue = "10") int limit) {
+        return jurisdictionService.search(q, type, limit);
+    }
+}
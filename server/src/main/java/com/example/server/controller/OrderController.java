@@ -3,13 +3,17 @@ package com.example.server.controller;
 import com.example.server.dto.common.PageResponse;
 import com.example.server.dto.order.ImportResultResponse;
 import com.example.server.dto.order.ImportRowError;
+import com.example.server.dto.order.OrderFilterParams;
 import com.example.server.dto.order.OrderFilterRequest;
 import com.example.server.dto.order.OrderRequest;
 import com.example.server.dto.order.OrderResponse;
 import com.example.server.entity.User;
 import com.example.server.service.CalculationProgressStore;
 import com.example.server.service.ImportBatchStore;
+import com.example.server.enums.ExportFormat;
 import com.example.server.service.OrderService;
+import com.example.server.util.ImportErrorCsvWriter;
+import com.example.server.util.OrderExportWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -22,13 +26,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1/orders")
@@ -36,6 +41,8 @@ import java.util.List;
 @Tag(name = "Orders", description = "Order management API")
 public class OrderController {
 
+    private static final int MAX_ERRORS_PAGE_SIZE = 1000;
+
     private final OrderService orderService;
     private final ImportBatchStore importBatchStore;
     private final CalculationProgressStore progressStore;
@@ -49,7 +56,12 @@ public class OrderController {
         return orderService.createOrder(request, currentUser.getId());
     }
 
-    @Operation(summary = "List orders — page is 0-based. Params: page, pageSize, sort, + filter params.")
+    @Operation(summary = "List orders — page is 0-based. Params: page, pageSize, sort, + filter params.",
+               description = "pagination: offset (default) | keyset. Keyset mode skips the total count and returns " +
+                             "nextCursor; pass it back as cursor to fetch the following page. Keyset mode sorts by one of " +
+                             "id, createdAt, timestamp. stateId, countyId, cityId, specialId take ids from " +
+                             "GET /api/v1/jurisdictions/search and may be repeated. includeJson=false omits specialRates and " +
+                             "jurisdictions from each row.")
     @GetMapping
     public PageResponse<OrderResponse> getOrders(
             @PageableDefault(size = 25, sort = {"createdAt", "id"}, direction = Sort.Direction.DESC) Pageable pageable,
@@ -57,6 +69,35 @@ public class OrderController {
         return orderService.getOrders(request, pageable);
     }
 
+    @Operation(summary = "Export all orders matching the filters",
+               description = "Accepts the same filter params as GET /api/v1/orders, without paging. " +
+                             "format: csv | ndjson (default: csv). gzip=true returns a .gz file. Rows are streamed in id order.")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @ModelAttribute OrderFilterRequest request,
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        OrderFilterParams filters = orderService.buildFilters(request);
+        String filename = "orders-export." + OrderExportWriter.fileExtension(exportFormat) + (gzip ? ".gz" : "");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+                orderService.exportOrders(filters, exportFormat, gzipOut);
+                gzipOut.finish();
+            } else {
+                orderService.exportOrders(filters, exportFormat, out);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.parseMediaType(
+                        gzip ? "application/gzip" : OrderExportWriter.contentType(exportFormat)))
+                .body(body);
+    }
+
     @Operation(summary = "Import orders from CSV",
                description = "duplicateHandling: skip | overwrite | fail (default: skip). " +
                              "outOfScopeHandling: mark | fail (default: mark).")
@@ -83,40 +124,115 @@ public class OrderController {
         return orderService.getCalculationResult(trackingId);
     }
 
-    @Operation(summary = "Download CSV error report for an import batch")
+    @Operation(summary = "Download CSV error report for an import batch",
+               description = "Streams every error of the import in row order, gzip-encoded when the client sends " +
+                             "Accept-Encoding: gzip. An interrupted download resumes with Range: rows=N- " +
+                             "(N data rows already received, header excluded), optionally guarded by If-Range with the ETag.")
     @GetMapping("/imports/{batchId}/errors")
-    public ResponseEntity<byte[]> getImportErrors(@PathVariable String batchId) {
-        if (!importBatchStore.exists(batchId)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Batch not found: " + batchId);
+    public ResponseEntity<StreamingResponseBody> getImportErrors(
+            @PathVariable String batchId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
+        requireImport(batchId);
+
+        long total = importBatchStore.count(batchId);
+        String etag = "\"" + batchId + "-" + total + "\"";
+        // An empty report has no rows to range over; it is always sent whole, as just the header.
+        Long start = total > 0 && range != null && (ifRange == null || ifRange.equals(etag))
+                ? parseRowsRange(range) : null;
+
+        if (start != null && start >= total) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "rows */" + total)
+                    .build();
         }
 
-        List<ImportRowError> errors = importBatchStore.get(batchId);
-        byte[] csv = buildErrorCsv(errors);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        long offset = start != null ? start : 0;
 
-        return ResponseEntity.ok()
+        StreamingResponseBody body = out -> {
+            GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, 64 * 1024) : null;
+            ImportErrorCsvWriter writer = new ImportErrorCsvWriter(gzip ? gzipOut : out, start == null);
+            importBatchStore.forEach(batchId, offset, writer);
+            writer.finish();
+            if (gzipOut != null) gzipOut.finish();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(start != null ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
                 .header(HttpHeaders.CONTENT_DISPOSITION,
                         "attachment; filename=\"import-" + batchId + "-errors.csv\"")
-                .contentType(MediaType.parseMediaType("text/csv; charset=UTF-8"))
-                .body(csv);
+                .header(HttpHeaders.ACCEPT_RANGES, "rows")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .eTag(etag)
+                .contentType(MediaType.parseMediaType("text/csv; charset=UTF-8"));
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        if (start != null) {
+            response.header(HttpHeaders.CONTENT_RANGE,
+                    "rows " + offset + "-" + (total - 1) + "/" + total);
+        }
+        return response.body(body);
+    }
+
+    @Operation(summary = "Page through the errors of an import batch — page is 0-based")
+    @GetMapping("/imports/{batchId}/errors/page")
+    public PageResponse<ImportRowError> getImportErrorsPage(
+            @PathVariable String batchId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int pageSize) {
+        requireImport(batchId);
+        if (page < 0 || pageSize < 1 || pageSize > MAX_ERRORS_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must be >= 0 and pageSize between 1 and " + MAX_ERRORS_PAGE_SIZE);
+        }
+
+        long total = importBatchStore.count(batchId);
+        int totalPages = (int) ((total + pageSize - 1) / pageSize);
+        return new PageResponse<>(
+                importBatchStore.page(batchId, page, pageSize),
+                page,
+                pageSize,
+                total,
+                totalPages,
+                false,
+                page + 1 < totalPages,
+                page > 0,
+                List.of(),
+                null
+        );
     }
 
-    private byte[] buildErrorCsv(List<ImportRowError> errors) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("rowNumber,externalId,reason,field,message,rawRow\n");
-        for (ImportRowError e : errors) {
-            sb.append(csvCell(e.getRowNumber()))  .append(',')
-              .append(csvCell(e.getExternalId()))  .append(',')
-              .append(csvCell(e.getReason()))       .append(',')
-              .append(csvCell(e.getField()))        .append(',')
-              .append(csvCell(e.getMessage()))      .append(',')
-              .append(csvCell(e.getRawRow()))       .append('\n');
+    private void requireImport(String batchId) {
+        if (!importBatchStore.exists(batchId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Batch not found: " + batchId);
+        }
+    }
+
+    /**
+     * @return the first requested row of a {@code rows=N-} range, or {@code null} for any other unit
+     */
+    static Long parseRowsRange(String range) {
+        if (!range.startsWith("rows=")) return null;
+        String spec = range.substring("rows=".length()).strip();
+        int dash = spec.indexOf('-');
+        try {
+            long first = Long.parseLong(dash >= 0 ? spec.substring(0, dash).strip() : spec);
+            if (first >= 0) return first;
+        } catch (NumberFormatException ignored) {
+            // fall through
         }
-        return sb.toString().getBytes(StandardCharsets.UTF_8);
+        throw new ResponseStatusException(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, "Invalid range: " + range);
     }
 
-    private static String csvCell(Object value) {
-        if (value == null) return "";
-        String s = value.toString().replace("\"", "\"\"");
-        return s.contains(",") || s.contains("\"") || s.contains("\n") ? "\"" + s + "\"" : s;
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.strip().split(";");
+            if (!parts[0].strip().equalsIgnoreCase("gzip")) continue;
+            return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+        }
+        return false;
     }
 }
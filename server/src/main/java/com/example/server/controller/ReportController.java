@@ -0,0 +1,37 @@
+package com.example.server.controller;
+
+import com.example.server.dto.report.TaxTotalRow;
+import com.example.server.service.ReportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/reports")
+@RequiredArgsConstructor
+@Tag(name = "Reports", description = "Tax reporting API")
+public class ReportController {
+
+    private final ReportService reportService;
+
+    @Operation(summary = "Collected tax per jurisdiction per day or month",
+               description = "Served from incrementally maintained daily totals of CALCULATED orders (UTC days, inclusive range). " +
+                             "period: day | month. type: state | county | city | special.")
+    @GetMapping("/tax-totals")
+    public List<TaxTotalRow> getTaxTotals(
+            @RequestParam(defaultValue = "month") String period,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Long jurisdictionId) {
+        return reportService.getTaxTotals(period, from, to, type, jurisdictionId);
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.server.controller;
 
+import com.example.server.dto.order.JurisdictionCacheStats;
+import com.example.server.service.JurisdictionResolver;
 import com.example.server.service.TaxCalculationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -17,11 +20,12 @@ import java.util.Map;
 public class TaxController {
 
     private final TaxCalculationService taxCalculationService;
+    private final JurisdictionResolver jurisdictionResolver;
 
     @Operation(
         summary = "Calculate taxes for all pending orders",
-        description = "Runs bulk PostGIS point-in-polygon lookup and updates tax fields " +
-                      "for all orders with status=ADDED. Sets status to CALCULATED or OUT_OF_SCOPE."
+        description = "Runs bulk point-in-polygon lookup (PostGIS or in-memory, see app.tax.engine) and updates " +
+                      "tax fields for all orders with status=ADDED. Sets status to CALCULATED or OUT_OF_SCOPE."
     )
     @PostMapping("/calculate")
     public Map<String, Object> calculateTaxes() {
@@ -31,4 +35,14 @@ public class TaxController {
                 "message", "Tax calculation complete"
         );
     }
+
+    @Operation(
+        summary = "Jurisdiction cache statistics",
+        description = "Hit, miss and eviction counters of the in-memory jurisdiction cache used by app.tax.engine=in-memory. " +
+                      "The cache is rebuilt whenever tax_rates or geo_jurisdictions change."
+    )
+    @GetMapping("/calculate/cache-stats")
+    public JurisdictionCacheStats jurisdictionCacheStats() {
+        return jurisdictionResolver.cacheStats();
+    }
 }
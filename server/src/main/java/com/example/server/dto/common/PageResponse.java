@@ -13,9 +13,11 @@ public class PageResponse<T> {
     private List<T> content;
     private int page;
     private int pageSize;
-    private long totalElements;
-    private int totalPages;
+    private Long totalElements;
+    private Integer totalPages;
+    private boolean totalApproximate;
     private boolean hasNext;
     private boolean hasPrevious;
     private List<String> sort;
+    private String nextCursor;
 }
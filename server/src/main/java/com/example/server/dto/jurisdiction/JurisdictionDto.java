@@ -0,0 +1,16 @@
+package com.example.server.dto.jurisdiction;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JurisdictionDto {
+    private Long id;
+    private String type;
+    private String name;
+}
@@ -7,5 +7,6 @@ public record CalculationBatchProgress(
         int totalCalculated,
         int totalOutOfScope,
         int totalProcessed,
-        int totalPending
+        int totalPending,
+        boolean resumed
 ) {}
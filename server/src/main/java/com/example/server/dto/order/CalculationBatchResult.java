@@ -0,0 +1,13 @@
+package com.example.server.dto.order;
+
+/**
+ * importCalculated / importOutOfScope are the import's running totals after this batch
+ * committed, or -1 when the batch was not scoped to an import.
+ */
+public record CalculationBatchResult(
+        int batchSize,
+        int calculated,
+        int outOfScope,
+        int importCalculated,
+        int importOutOfScope
+) {}
@@ -0,0 +1,10 @@
+package com.example.server.dto.order;
+
+import com.example.server.enums.OutOfScopeHandling;
+
+public record CalculationJob(
+        long id,
+        String trackingId,
+        OutOfScopeHandling outOfScopeHandling,
+        int attempts
+) {}
@@ -15,6 +15,7 @@ public class CalculationProgressEvent {
     int batchOutOfScope;
     int batchSize;
     String status;
+    boolean resumed;
 
     public boolean isTerminal() {
         return "COMPLETED".equals(status) || "FAILED".equals(status);
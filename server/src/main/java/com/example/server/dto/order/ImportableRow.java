@@ -9,10 +9,14 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class ImportableRow {
     private int rowNumber;
-    private String rawLine;
+    private String[] rawFields;
     private Long externalId;
     private BigDecimal latitude;
     private BigDecimal longitude;
     private Long timestamp;
     private BigDecimal subtotal;
+
+    public String getRawLine() {
+        return rawFields != null ? String.join(",", rawFields) : null;
+    }
 }
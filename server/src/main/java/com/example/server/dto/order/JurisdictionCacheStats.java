@@ -0,0 +1,10 @@
+package com.example.server.dto.order;
+
+public record JurisdictionCacheStats(
+        long hits,
+        long misses,
+        long evictions,
+        int size,
+        int maxSize,
+        Long referenceDataVersion
+) {}
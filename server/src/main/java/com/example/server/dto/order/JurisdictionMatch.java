@@ -0,0 +1,22 @@
+package com.example.server.dto.order;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+public record JurisdictionMatch(
+        BigDecimal stateRate,
+        BigDecimal countyRate,
+        BigDecimal cityRate,
+        BigDecimal specialSum,
+        List<SpecialRateEntry> specialRates,
+        Map<String, Object> jurisdictions,
+        Long stateId,
+        Long countyId,
+        Long cityId,
+        Long[] specialIds
+) {
+    public BigDecimal compositeRate() {
+        return stateRate.add(countyRate).add(cityRate).add(specialSum);
+    }
+}
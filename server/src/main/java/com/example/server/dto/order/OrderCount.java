@@ -0,0 +1,3 @@
+package com.example.server.dto.order;
+
+public record OrderCount(long total, boolean approximate) {}
@@ -0,0 +1,7 @@
+package com.example.server.dto.order;
+
+/**
+ * Decoded keyset cursor: the sort property it was issued for, the last row's value of that
+ * property (string form) and the last row's id as tiebreaker.
+ */
+public record OrderCursor(String property, String value, long id) {}
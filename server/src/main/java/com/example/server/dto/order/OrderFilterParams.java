@@ -7,9 +7,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class OrderFilterParams {
@@ -28,9 +29,9 @@ public class OrderFilterParams {
     private BigDecimal compositeTaxRateMin;
     private BigDecimal compositeTaxRateMax;
 
-    private String jurState;
-    private String jurCounty;
-    private String jurCity;
-    private String jurSpecial;
+    private List<Long> stateIds;
+    private List<Long> countyIds;
+    private List<Long> cityIds;
+    private List<Long> specialIds;
     private Boolean hasSpecial;
 }
@@ -4,6 +4,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -28,4 +29,13 @@ public class OrderFilterRequest {
     private String jurCity;
     private String jurSpecial;
     private Boolean hasSpecial;
+
+    private List<Long> stateId;
+    private List<Long> countyId;
+    private List<Long> cityId;
+    private List<Long> specialId;
+
+    private String pagination;
+    private String cursor;
+    private Boolean includeJson;
 }
@@ -0,0 +1,22 @@
+package com.example.server.dto.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaxTotalRow {
+    private String period;
+    private Long jurisdictionId;
+    private String jurisdictionType;
+    private String jurisdictionName;
+    private Long orderCount;
+    private BigDecimal taxableAmount;
+    private BigDecimal taxAmount;
+}
@@ -1,10 +1,15 @@
 package com.example.server.entity;
 
+import com.example.server.enums.CalculationStatus;
+import com.example.server.enums.OutOfScopeHandling;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Data
 @Entity
@@ -29,4 +34,25 @@ public class ImportBatch {
 
     @Column(name = "skipped_duplicate_rows", nullable = false)
     private int skippedDuplicateRows;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "calculation_status", length = 20)
+    private CalculationStatus calculationStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "out_of_scope_handling", length = 10)
+    private OutOfScopeHandling outOfScopeHandling;
+
+    @Column(name = "calculated_rows", nullable = false)
+    private int calculatedRows;
+
+    @Column(name = "out_of_scope_rows", nullable = false)
+    private int outOfScopeRows;
+
+    @Column(name = "last_processed_id")
+    private Long lastProcessedId;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
 }
@@ -57,6 +57,12 @@ public class Order {
     @Column(name = "created_by", nullable = false)
     private Long createdBy;
 
+    @Column(name = "import_batch_id", length = 36)
+    private String importBatchId;
+
+    @Column(name = "import_row_number")
+    private Integer importRowNumber;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
@@ -90,4 +96,16 @@ public class Order {
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "jurisdictions", columnDefinition = "jsonb")
     private Map<String, Object> jurisdictions;
+
+    @Column(name = "state_id")
+    private Long stateId;
+
+    @Column(name = "county_id")
+    private Long countyId;
+
+    @Column(name = "city_id")
+    private Long cityId;
+
+    @Column(name = "special_ids", columnDefinition = "bigint[]")
+    private Long[] specialIds;
 }
@@ -0,0 +1,8 @@
+package com.example.server.enums;
+
+public enum CalculationJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package com.example.server.enums;
+
+public enum CalculationStatus {
+    IMPORTING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
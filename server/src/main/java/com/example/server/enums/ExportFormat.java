@@ -0,0 +1,11 @@
+package com.example.server.enums;
+
+public enum ExportFormat {
+    CSV,
+    NDJSON;
+
+    public static ExportFormat from(String value) {
+        if (value == null) return CSV;
+        return "ndjson".equalsIgnoreCase(value.trim()) ? NDJSON : CSV;
+    }
+}
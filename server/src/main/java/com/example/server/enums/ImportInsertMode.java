@@ -0,0 +1,6 @@
+package com.example.server.enums;
+
+public enum ImportInsertMode {
+    BATCH,
+    COPY
+}
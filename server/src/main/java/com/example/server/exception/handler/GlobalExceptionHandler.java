@@ -5,6 +5,7 @@ import com.example.server.exception.PlaceNotFound;
 import com.example.server.exception.ReviewNotFound;
 import com.example.server.exception.UserNotFound;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -24,6 +25,9 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @Value("${spring.servlet.multipart.max-file-size}")
+    private String maxFileSize;
+
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<?> handleAuthenticationException(AuthenticationException e) {
         Map<String, String> response = new HashMap<>();
@@ -95,7 +99,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(MaxUploadSizeExceededException.class)
     public ResponseEntity<?> handleMaxUploadSizeExceeded(MaxUploadSizeExceededException e) {
         Map<String, String> response = new HashMap<>();
-        response.put("message", "File is too large. Maximum allowed size is 50MB.");
+        response.put("message", "File is too large. Maximum allowed size is " + maxFileSize + ".");
         log.error("File upload size exceeded: {}", e.getMessage());
         return new ResponseEntity<>(response, HttpStatus.PAYLOAD_TOO_LARGE);
     }
@@ -1,12 +1,17 @@
 package com.example.server.mapper;
 
 import com.example.server.dto.order.OrderResponse;
+import com.example.server.dto.order.SpecialRateEntry;
 import com.example.server.entity.Order;
+import com.example.server.enums.OrderStatus;
+import jakarta.persistence.Tuple;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class OrderMapper {
@@ -34,6 +39,33 @@ public class OrderMapper {
                 .build();
     }
 
+    /**
+     * Maps a projection row from OrderQueryRepository; JSON columns are left null when not selected.
+     */
+    @SuppressWarnings("unchecked")
+    public OrderResponse toResponse(Tuple row, boolean includeJson) {
+        return OrderResponse.builder()
+                .id(row.get("id", Long.class))
+                .latitude(row.get("latitude", BigDecimal.class))
+                .longitude(row.get("longitude", BigDecimal.class))
+                .timestamp(toIso(row.get("timestamp", Long.class)))
+                .subtotal(round2(row.get("subtotal", BigDecimal.class)))
+                .status(row.get("status", OrderStatus.class))
+                .csvImported(row.get("csvImported", Boolean.class))
+                .createdBy(row.get("createdBy", Long.class))
+                .createdAt(row.get("createdAt", Instant.class))
+                .updatedAt(row.get("updatedAt", Instant.class))
+                .compositeTaxRate(row.get("compositeTaxRate", BigDecimal.class))
+                .taxAmount(round2(row.get("taxAmount", BigDecimal.class)))
+                .totalAmount(round2(row.get("totalAmount", BigDecimal.class)))
+                .stateRate(row.get("stateRate", BigDecimal.class))
+                .countyRate(row.get("countyRate", BigDecimal.class))
+                .cityRate(row.get("cityRate", BigDecimal.class))
+                .specialRates(includeJson ? (List<SpecialRateEntry>) row.get("specialRates") : null)
+                .jurisdictions(includeJson ? (Map<String, Object>) row.get("jurisdictions") : null)
+                .build();
+    }
+
     private String toIso(Long epochMillis) {
         if (epochMillis == null) return null;
         return Instant.ofEpochMilli(epochMillis).toString();
@@ -1,7 +1,43 @@
 package com.example.server.repository;
 
 import com.example.server.entity.ImportBatch;
+import com.example.server.enums.CalculationStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 public interface ImportBatchRepository extends JpaRepository<ImportBatch, String> {
+
+    List<ImportBatch> findByCalculationStatus(CalculationStatus calculationStatus);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImportBatch b SET b.calculationStatus = :status, b.updatedAt = INSTANT " +
+           "WHERE b.trackingId = :trackingId")
+    int updateCalculationStatus(String trackingId, CalculationStatus status);
+
+    /**
+     * Per-chunk ingest progress; the updated_at bump also tells calculation the upload is alive.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImportBatch b SET b.importedRows = :importedRows, b.skippedDuplicateRows = :skippedRows, " +
+           "b.updatedAt = INSTANT WHERE b.trackingId = :trackingId")
+    int updateIngestProgress(String trackingId, int importedRows, int skippedRows);
+
+    /**
+     * Final ingest counters. The status only moves on from IMPORTING; calculation counters are left alone.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImportBatch b SET b.totalRows = :totalRows, b.parsedRows = :parsedRows, " +
+           "b.importedRows = :importedRows, b.skippedDuplicateRows = :skippedRows, " +
+           "b.calculationStatus = CASE WHEN b.calculationStatus = com.example.server.enums.CalculationStatus.IMPORTING " +
+           "THEN :status ELSE b.calculationStatus END, b.updatedAt = INSTANT " +
+           "WHERE b.trackingId = :trackingId")
+    int finishIngest(String trackingId, int totalRows, int parsedRows, int importedRows, int skippedRows,
+                     CalculationStatus status);
 }
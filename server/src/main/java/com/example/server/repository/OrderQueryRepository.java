@@ -0,0 +1,32 @@
+package com.example.server.repository;
+
+import com.example.server.entity.Order;
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Read paths that select the listed columns as tuples instead of hydrating managed entities.
+ * Tuple elements are aliased by entity property name.
+ */
+public interface OrderQueryRepository {
+
+    /**
+     * Offset/limit fetch without the COUNT query Spring Data issues for {@code Page} results.
+     */
+    List<Tuple> findRows(Specification<Order> spec, Sort sort, long offset, int limit, boolean includeJson);
+
+    /**
+     * Server-side cursor over every match; must be consumed inside a transaction and closed.
+     */
+    Stream<Tuple> streamRows(Specification<Order> spec, Sort sort, int fetchSize, boolean includeJson);
+
+    /**
+     * Counts matches but stops reading after {@code cap} of them:
+     * {@code SELECT count(*) FROM (SELECT id ... LIMIT cap)}. A result equal to {@code cap} means "at least".
+     */
+    long countUpTo(Specification<Order> spec, long cap);
+}
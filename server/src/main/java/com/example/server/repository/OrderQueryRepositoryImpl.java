@@ -0,0 +1,86 @@
+package com.example.server.repository;
+
+import com.example.server.entity.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaCriteriaQuery;
+import org.hibernate.query.criteria.JpaRoot;
+import org.hibernate.query.criteria.JpaSubQuery;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class OrderQueryRepositoryImpl implements OrderQueryRepository {
+
+    private static final List<String> COLUMNS = List.of(
+            "id", "latitude", "longitude", "timestamp", "subtotal", "status", "csvImported", "createdBy",
+            "createdAt", "updatedAt", "compositeTaxRate", "taxAmount", "totalAmount",
+            "stateRate", "countyRate", "cityRate");
+
+    private static final List<String> JSON_COLUMNS = List.of("specialRates", "jurisdictions");
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Tuple> findRows(Specification<Order> spec, Sort sort, long offset, int limit, boolean includeJson) {
+        return entityManager.createQuery(select(spec, sort, includeJson))
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<Tuple> streamRows(Specification<Order> spec, Sort sort, int fetchSize, boolean includeJson) {
+        return entityManager.createQuery(select(spec, sort, includeJson))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    @Override
+    public long countUpTo(Specification<Order> spec, long cap) {
+        HibernateCriteriaBuilder cb = (HibernateCriteriaBuilder) entityManager.getCriteriaBuilder();
+        JpaCriteriaQuery<Long> query = cb.createQuery(Long.class);
+
+        JpaSubQuery<Tuple> matches = query.subquery(Tuple.class);
+        JpaRoot<Order> root = matches.from(Order.class);
+        matches.multiselect(root.get("id").alias("id"));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) matches.where(predicate);
+        matches.fetch(cap);
+
+        query.from(matches);
+        query.select(cb.count());
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private CriteriaQuery<Tuple> select(Specification<Order> spec, Sort sort, boolean includeJson) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Order> root = query.from(Order.class);
+
+        List<Selection<?>> selections = new ArrayList<>(COLUMNS.size() + JSON_COLUMNS.size());
+        for (String column : COLUMNS) selections.add(root.get(column).alias(column));
+        if (includeJson) {
+            for (String column : JSON_COLUMNS) selections.add(root.get(column).alias(column));
+        }
+        query.multiselect(selections);
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return query;
+    }
+}
@@ -2,8 +2,11 @@ package com.example.server.repository;
 
 import com.example.server.dto.order.OrderFilterParams;
 import com.example.server.entity.Order;
-import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.ArrayList;
@@ -53,47 +56,61 @@ public class OrderSpecification {
                 predicates.add(cb.lessThanOrEqualTo(root.get("compositeTaxRate"), f.getCompositeTaxRateMax()));
             }
 
-            if (f.getJurState() != null) {
-                Expression<String> expr = cb.function("jsonb_extract_path_text", String.class,
-                        root.get("jurisdictions"), cb.literal("state"));
-                predicates.add(cb.like(cb.lower(expr), "%" + f.getJurState().strip().toLowerCase() + "%"));
+            if (f.getStateIds() != null) {
+                predicates.add(idIn(root.get("stateId"), f.getStateIds(), cb));
             }
 
-            if (f.getJurCounty() != null) {
-                Expression<String> expr = cb.function("jsonb_extract_path_text", String.class,
-                        root.get("jurisdictions"), cb.literal("county"));
-                predicates.add(cb.like(cb.lower(expr), "%" + f.getJurCounty().strip().toLowerCase() + "%"));
+            if (f.getCountyIds() != null) {
+                predicates.add(idIn(root.get("countyId"), f.getCountyIds(), cb));
             }
 
-            if (f.getJurCity() != null) {
-                Expression<String> expr = cb.function("jsonb_extract_path_text", String.class,
-                        root.get("jurisdictions"), cb.literal("city"));
-                predicates.add(cb.like(cb.lower(expr), "%" + f.getJurCity().strip().toLowerCase() + "%"));
+            if (f.getCityIds() != null) {
+                predicates.add(idIn(root.get("cityId"), f.getCityIds(), cb));
             }
 
-            if (f.getJurSpecial() != null) {
-                Expression<String> expr = cb.function("jsonb_extract_path_text", String.class,
-                        root.get("jurisdictions"), cb.literal("special"));
-                predicates.add(cb.like(expr, "%\"" + f.getJurSpecial().strip() + "\"%"));
+            if (f.getSpecialIds() != null) {
+                predicates.add(f.getSpecialIds().isEmpty()
+                        ? cb.disjunction()
+                        : ((HibernateCriteriaBuilder) cb).arrayOverlaps(
+                                root.get("specialIds"), f.getSpecialIds().toArray(new Long[0])));
             }
 
             if (f.getHasSpecial() != null) {
-                Expression<String> specialText = cb.function("jsonb_extract_path_text", String.class,
-                        root.get("jurisdictions"), cb.literal("special"));
-                if (Boolean.TRUE.equals(f.getHasSpecial())) {
-                    predicates.add(cb.and(
-                            cb.isNotNull(specialText),
-                            cb.notEqual(specialText, "[]")
-                    ));
-                } else {
-                    predicates.add(cb.or(
-                            cb.isNull(specialText),
-                            cb.equal(specialText, "[]")
-                    ));
-                }
+                predicates.add(Boolean.TRUE.equals(f.getHasSpecial())
+                        ? cb.isNotNull(root.get("specialIds"))
+                        : cb.isNull(root.get("specialIds")));
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    private static Predicate idIn(Path<Long> column, List<Long> ids, CriteriaBuilder cb) {
+        return ids.isEmpty() ? cb.disjunction() : column.in(ids);
+    }
+
+    /**
+     * Rows strictly after ({@code value}, {@code id}) in the given sort order. The leading
+     * range on the sort column lets PostgreSQL drive the scan from a (column, id) index.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Order> seekAfter(String property, Sort.Direction direction,
+                                                 Sort.Direction idDirection, Comparable value, long id) {
+        return (root, query, cb) -> {
+            Predicate idAfter = idDirection.isDescending()
+                    ? cb.lessThan(root.get("id"), id)
+                    : cb.greaterThan(root.get("id"), id);
+            if ("id".equals(property)) return idAfter;
+
+            Path<Comparable> column = root.get(property);
+            Predicate range = direction.isDescending()
+                    ? cb.lessThanOrEqualTo(column, value)
+                    : cb.greaterThanOrEqualTo(column, value);
+            Predicate strictlyAfter = direction.isDescending()
+                    ? cb.lessThan(column, value)
+                    : cb.greaterThan(column, value);
+
+            return cb.and(range, cb.or(strictlyAfter, cb.and(cb.equal(column, value), idAfter)));
+        };
+    }
 }
@@ -1,29 +1,45 @@
 package com.example.server.repository;
 
-import com.example.server.dto.order.CalculationBatchProgress;
+import com.example.server.dto.order.CalculationBatchResult;
+import com.example.server.dto.order.JurisdictionMatch;
+import com.example.server.enums.TaxEngine;
+import com.example.server.service.JurisdictionResolver;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.sql.Array;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.function.Consumer;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class TaxCalculationNativeRepository {
 
-    private static final int BATCH_SIZE = 1000;
+    public static final int BATCH_SIZE = 1000;
 
+    // The id columns take the id of the row whose name is stored in jurisdictions (greatest name,
+    // then greatest id), so id filters and tax totals agree with the JSON when jurisdictions overlap.
+    // Names compare under COLLATE "C" (code point order), the same order JurisdictionResolver uses,
+    // so both engines pick the same row whatever the database collation.
+    // Rate validity is judged against today's date in UTC, as in JurisdictionResolver, not the
+    // session time zone, so both engines switch rate sets at the same instant.
     private static final String CALCULATE_BATCH_SQL = """
             WITH jurisdiction_rates AS (
                 SELECT
                     o.id                                                                AS order_id,
+                    o.timestamp                                                         AS order_ts,
                     COALESCE(MAX(CASE WHEN tr.rate_type = 'STATE'   THEN tr.rate END), 0) AS state_rate,
                     COALESCE(MAX(CASE WHEN tr.rate_type = 'COUNTY'  THEN tr.rate END), 0) AS county_rate,
                     COALESCE(MAX(CASE WHEN tr.rate_type = 'CITY'    THEN tr.rate END), 0) AS city_rate,
@@ -32,21 +48,33 @@ public class TaxCalculationNativeRepository {
                         jsonb_build_object('name', j.name, 'rate', tr.rate)
                     ) FILTER (WHERE tr.rate_type = 'SPECIAL')                          AS special_rates_json,
                     jsonb_build_object(
-                        'state',   MAX(CASE WHEN j.type = 'STATE'   THEN j.name END),
-                        'county',  MAX(CASE WHEN j.type = 'COUNTY'  THEN j.name END),
-                        'city',    MAX(CASE WHEN j.type = 'CITY'    THEN j.name END),
+                        'state',   MAX(CASE WHEN j.type = 'STATE'   THEN j.name COLLATE "C" END),
+                        'county',  MAX(CASE WHEN j.type = 'COUNTY'  THEN j.name COLLATE "C" END),
+                        'city',    MAX(CASE WHEN j.type = 'CITY'    THEN j.name COLLATE "C" END),
                         'special', jsonb_agg(j.name) FILTER (WHERE j.type = 'SPECIAL')
-                    )                                                                   AS jurisdictions_json
+                    )                                                                   AS jurisdictions_json,
+                    (array_agg(j.id ORDER BY j.name COLLATE "C" DESC, j.id DESC)
+                        FILTER (WHERE j.type = 'STATE'))[1]                             AS state_id,
+                    (array_agg(j.id ORDER BY j.name COLLATE "C" DESC, j.id DESC)
+                        FILTER (WHERE j.type = 'COUNTY'))[1]                            AS county_id,
+                    (array_agg(j.id ORDER BY j.name COLLATE "C" DESC, j.id DESC)
+                        FILTER (WHERE j.type = 'CITY'))[1]                              AS city_id,
+                    array_agg(DISTINCT j.id) FILTER (WHERE j.type = 'SPECIAL')          AS special_ids
                 FROM orders o
+                CROSS JOIN LATERAL (
+                    SELECT ST_SetSRID(ST_MakePoint(CAST(o.longitude AS float8),
+                                                   CAST(o.latitude  AS float8)), 4326) AS pt
+                ) p
                 JOIN geo_jurisdictions j
-                    ON ST_Contains(j.geom,
-                       ST_SetSRID(ST_MakePoint(CAST(o.longitude AS float8),
-                                               CAST(o.latitude  AS float8)), 4326))
+                    ON j.geom && p.pt
+                   AND (j.geom_outer IS NULL OR ST_Contains(j.geom_outer, p.pt))
+                   AND CASE WHEN ST_Contains(j.geom_inner, p.pt) THEN true
+                            ELSE ST_Contains(j.geom, p.pt) END
                 JOIN tax_rates tr
                     ON tr.jurisdiction_id = j.id
-                   AND (tr.valid_to IS NULL OR tr.valid_to >= CURRENT_DATE)
-                WHERE o.id = ANY(?) AND o.status = 'ADDED'
-                GROUP BY o.id
+                   AND (tr.valid_to IS NULL OR tr.valid_to >= (now() AT TIME ZONE 'UTC')::date)
+                WHERE o.id = ANY(?) AND o.timestamp BETWEEN ? AND ? AND o.status = 'ADDED'
+                GROUP BY o.id, o.timestamp
             )
             UPDATE orders o
             SET
@@ -58,16 +86,22 @@ public class TaxCalculationNativeRepository {
                 tax_amount         = o.subtotal * (jr.state_rate + jr.county_rate + jr.city_rate + jr.special_sum),
                 total_amount       = o.subtotal * (1 + jr.state_rate + jr.county_rate + jr.city_rate + jr.special_sum),
                 jurisdictions      = jr.jurisdictions_json,
+                state_id           = jr.state_id,
+                county_id          = jr.county_id,
+                city_id            = jr.city_id,
+                special_ids        = jr.special_ids,
                 status             = 'CALCULATED',
                 updated_at         = now()
             FROM jurisdiction_rates jr
-            WHERE o.id = jr.order_id
+            WHERE o.id = jr.order_id AND o.timestamp = jr.order_ts
+              AND o.timestamp BETWEEN ? AND ?
             """;
 
     private static final String CALCULATE_SINGLE_SQL = """
             WITH jurisdiction_rates AS (
                 SELECT
                     o.id                                                                AS order_id,
+                    o.timestamp                                                         AS order_ts,
                     COALESCE(MAX(CASE WHEN tr.rate_type = 'STATE'   THEN tr.rate END), 0) AS state_rate,
                     COALESCE(MAX(CASE WHEN tr.rate_type = 'COUNTY'  THEN tr.rate END), 0) AS county_rate,
                     COALESCE(MAX(CASE WHEN tr.rate_type = 'CITY'    THEN tr.rate END), 0) AS city_rate,
@@ -76,21 +110,33 @@ public class TaxCalculationNativeRepository {
                         jsonb_build_object('name', j.name, 'rate', tr.rate)
                     ) FILTER (WHERE tr.rate_type = 'SPECIAL')                          AS special_rates_json,
                     jsonb_build_object(
-                        'state',   MAX(CASE WHEN j.type = 'STATE'   THEN j.name END),
-                        'county',  MAX(CASE WHEN j.type = 'COUNTY'  THEN j.name END),
-                        'city',    MAX(CASE WHEN j.type = 'CITY'    THEN j.name END),
+                        'state',   MAX(CASE WHEN j.type = 'STATE'   THEN j.name COLLATE "C" END),
+                        'county',  MAX(CASE WHEN j.type = 'COUNTY'  THEN j.name COLLATE "C" END),
+                        'city',    MAX(CASE WHEN j.type = 'CITY'    THEN j.name COLLATE "C" END),
                         'special', jsonb_agg(j.name) FILTER (WHERE j.type = 'SPECIAL')
-                    )                                                                   AS jurisdictions_json
+                    )                                                                   AS jurisdictions_json,
+                    (array_agg(j.id ORDER BY j.name COLLATE "C" DESC, j.id DESC)
+                        FILTER (WHERE j.type = 'STATE'))[1]                             AS state_id,
+                    (array_agg(j.id ORDER BY j.name COLLATE "C" DESC, j.id DESC)
+                        FILTER (WHERE j.type = 'COUNTY'))[1]                            AS county_id,
+                    (array_agg(j.id ORDER BY j.name COLLATE "C" DESC, j.id DESC)
+                        FILTER (WHERE j.type = 'CITY'))[1]                              AS city_id,
+                    array_agg(DISTINCT j.id) FILTER (WHERE j.type = 'SPECIAL')          AS special_ids
                 FROM orders o
+                CROSS JOIN LATERAL (
+                    SELECT ST_SetSRID(ST_MakePoint(CAST(o.longitude AS float8),
+                                                   CAST(o.latitude  AS float8)), 4326) AS pt
+                ) p
                 JOIN geo_jurisdictions j
-                    ON ST_Contains(j.geom,
-                       ST_SetSRID(ST_MakePoint(CAST(o.longitude AS float8),
-                                               CAST(o.latitude  AS float8)), 4326))
+                    ON j.geom && p.pt
+                   AND (j.geom_outer IS NULL OR ST_Contains(j.geom_outer, p.pt))
+                   AND CASE WHEN ST_Contains(j.geom_inner, p.pt) THEN true
+                            ELSE ST_Contains(j.geom, p.pt) END
                 JOIN tax_rates tr
                     ON tr.jurisdiction_id = j.id
-                   AND (tr.valid_to IS NULL OR tr.valid_to >= CURRENT_DATE)
+                   AND (tr.valid_to IS NULL OR tr.valid_to >= (now() AT TIME ZONE 'UTC')::date)
                 WHERE o.id = ? AND o.status = 'ADDED'
-                GROUP BY o.id
+                GROUP BY o.id, o.timestamp
             )
             UPDATE orders o
             SET
@@ -102,85 +148,110 @@ public class TaxCalculationNativeRepository {
                 tax_amount         = o.subtotal * (jr.state_rate + jr.county_rate + jr.city_rate + jr.special_sum),
                 total_amount       = o.subtotal * (1 + jr.state_rate + jr.county_rate + jr.city_rate + jr.special_sum),
                 jurisdictions      = jr.jurisdictions_json,
+                state_id           = jr.state_id,
+                county_id          = jr.county_id,
+                city_id            = jr.city_id,
+                special_ids        = jr.special_ids,
                 status             = 'CALCULATED',
                 updated_at         = now()
             FROM jurisdiction_rates jr
-            WHERE o.id = jr.order_id
+            WHERE o.id = jr.order_id AND o.timestamp = jr.order_ts
             """;
 
-    private final JdbcTemplate jdbc;
-
-    @Transactional
-    public int calculatePendingOrders() {
-        return calculatePendingOrders(null);
-    }
-
-    @Transactional
-    public int calculatePendingOrders(Consumer<CalculationBatchProgress> onBatch) {
-        int totalPending = Objects.requireNonNull(
-                jdbc.queryForObject("SELECT COUNT(*) FROM orders WHERE status = 'ADDED'", Integer.class));
+    private static final String SELECT_COORDINATES_SQL =
+            "SELECT id, timestamp, latitude, longitude FROM orders " +
+            "WHERE id = ANY(?) AND timestamp BETWEEN ? AND ? AND status = 'ADDED'";
 
-        log.info("Tax calculation started: {} pending orders to process (batch size={}).", totalPending, BATCH_SIZE);
+    private static final String MARK_OUT_OF_SCOPE_SQL =
+            "UPDATE orders SET status = 'OUT_OF_SCOPE', updated_at = now() " +
+            "WHERE id = ANY(?) AND timestamp BETWEEN ? AND ? AND status = 'ADDED'";
 
-        if (totalPending == 0) {
-            log.info("Tax calculation finished: nothing to process.");
-            return 0;
-        }
-
-        int totalCalculated = 0;
-        int totalOutOfScope = 0;
-        int batchNum        = 0;
-
-        while (true) {
-            List<Long> batchIds = jdbc.queryForList(
-                    "SELECT id FROM orders WHERE status = 'ADDED' ORDER BY id LIMIT " + BATCH_SIZE,
-                    Long.class);
+    private static final String APPLY_RATES_SQL = """
+            UPDATE orders
+            SET
+                state_rate         = ?,
+                county_rate        = ?,
+                city_rate          = ?,
+                special_rates      = CAST(? AS jsonb),
+                composite_tax_rate = ?,
+                tax_amount         = subtotal * ?,
+                total_amount       = subtotal * (1 + ?),
+                jurisdictions      = CAST(? AS jsonb),
+                state_id           = ?,
+                county_id          = ?,
+                city_id            = ?,
+                special_ids        = ?,
+                status             = 'CALCULATED',
+                updated_at         = now()
+            WHERE id = ? AND timestamp = ? AND status = 'ADDED'
+            """;
 
-            if (batchIds.isEmpty()) break;
+    private final JdbcTemplate jdbc;
+    private final JurisdictionResolver jurisdictionResolver;
+    private final ObjectMapper objectMapper;
 
-            batchNum++;
-            Long[] idsArr = batchIds.toArray(new Long[0]);
+    @Value("${app.tax.engine:sql}")
+    private TaxEngine engine;
 
-            int calculated = Objects.requireNonNull(jdbc.execute((ConnectionCallback<Integer>) conn -> {
-                Array arr = conn.createArrayOf("bigint", idsArr);
-                try (var ps = conn.prepareStatement(CALCULATE_BATCH_SQL)) {
-                    ps.setArray(1, arr);
-                    return ps.executeUpdate();
-                }
-            }));
-
-            int outOfScope = Objects.requireNonNull(jdbc.execute((ConnectionCallback<Integer>) conn -> {
-                Array arr = conn.createArrayOf("bigint", idsArr);
-                try (var ps = conn.prepareStatement(
-                        "UPDATE orders SET status = 'OUT_OF_SCOPE', updated_at = now() WHERE id = ANY(?) AND status = 'ADDED'")) {
-                    ps.setArray(1, arr);
-                    return ps.executeUpdate();
-                }
-            }));
+    /**
+     * Pending orders are scoped to one import when {@code importBatchId} is given,
+     * otherwise every ADDED row in the table is pending.
+     */
+    public int countPending(String importBatchId) {
+        return Objects.requireNonNull(jdbc.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE " + pendingFilter(importBatchId),
+                Integer.class, pendingArgs(importBatchId)));
+    }
 
-            totalCalculated += calculated;
-            totalOutOfScope += outOfScope;
+    /**
+     * Claims up to {@link #BATCH_SIZE} pending orders, calculates them and marks the ids that
+     * matched no jurisdiction as OUT_OF_SCOPE. Runs in its own transaction, so every batch commits
+     * independently and its claim is released on commit or rollback; for an import the checkpoint
+     * on import_batches is advanced in that same transaction.
+     *
+     * @return the batch result, with a batch size of 0 once nothing is left to claim
+     */
+    @Transactional
+    public CalculationBatchResult calculateNextBatch(String importBatchId) {
+        ClaimedBatch batch = claimPending(importBatchId);
+        if (batch == null) return new CalculationBatchResult(0, 0, 0, -1, -1);
 
-            log.info("Batch #{} ({} rows): {} calculated, {} out of scope — total so far: {}/{} done.",
-                    batchNum, batchIds.size(), calculated, outOfScope, totalCalculated + totalOutOfScope, totalPending);
+        int calculated = engine == TaxEngine.IN_MEMORY
+                ? calculateInMemory(batch.ids(), batch.minTimestamp(), batch.maxTimestamp())
+                : calculateWithPostgis(batch);
 
-            if (onBatch != null) {
-                onBatch.accept(new CalculationBatchProgress(
-                        calculated, outOfScope, batchIds.size(),
-                        totalCalculated, totalOutOfScope,
-                        totalCalculated + totalOutOfScope, totalPending));
+        int outOfScope = Objects.requireNonNull(jdbc.execute((ConnectionCallback<Integer>) conn -> {
+            try (var ps = conn.prepareStatement(MARK_OUT_OF_SCOPE_SQL)) {
+                ps.setArray(1, conn.createArrayOf("bigint", batch.ids()));
+                ps.setLong(2, batch.minTimestamp());
+                ps.setLong(3, batch.maxTimestamp());
+                return ps.executeUpdate();
             }
-        }
+        }));
 
-        log.info("Tax calculation finished: {} calculated, {} out of scope (total processed: {}).",
-                totalCalculated, totalOutOfScope, totalCalculated + totalOutOfScope);
+        if (importBatchId == null) {
+            return new CalculationBatchResult(batch.ids().length, calculated, outOfScope, -1, -1);
+        }
 
-        return totalCalculated;
+        // The returned counters include batches committed by other workers and nodes.
+        return jdbc.queryForObject("""
+                UPDATE import_batches
+                SET calculated_rows   = calculated_rows + ?,
+                    out_of_scope_rows = out_of_scope_rows + ?,
+                    last_processed_id = GREATEST(COALESCE(last_processed_id, 0), ?),
+                    updated_at        = now()
+                WHERE tracking_id = ?
+                RETURNING calculated_rows, out_of_scope_rows
+                """, (rs, n) -> new CalculationBatchResult(batch.ids().length, calculated, outOfScope,
+                        rs.getInt("calculated_rows"), rs.getInt("out_of_scope_rows")),
+                calculated, outOfScope, batch.ids()[batch.ids().length - 1], importBatchId);
     }
 
     @Transactional
     public void calculateSingleOrder(Long orderId) {
-        int calculated = jdbc.update(CALCULATE_SINGLE_SQL, orderId);
+        int calculated = engine == TaxEngine.IN_MEMORY
+                ? calculateInMemory(new Long[]{orderId}, Long.MIN_VALUE, Long.MAX_VALUE)
+                : jdbc.update(CALCULATE_SINGLE_SQL, orderId);
 
         if (calculated == 0) {
             jdbc.update("""
@@ -190,4 +261,120 @@ public class TaxCalculationNativeRepository {
             log.debug("Order {} is out of scope.", orderId);
         }
     }
+
+    private int calculateWithPostgis(ClaimedBatch batch) {
+        return Objects.requireNonNull(jdbc.execute((ConnectionCallback<Integer>) conn -> {
+            try (var ps = conn.prepareStatement(CALCULATE_BATCH_SQL)) {
+                ps.setArray(1, conn.createArrayOf("bigint", batch.ids()));
+                ps.setLong(2, batch.minTimestamp());
+                ps.setLong(3, batch.maxTimestamp());
+                ps.setLong(4, batch.minTimestamp());
+                ps.setLong(5, batch.maxTimestamp());
+                return ps.executeUpdate();
+            }
+        }));
+    }
+
+    private int calculateInMemory(Long[] idsArr, long minTimestamp, long maxTimestamp) {
+        List<ResolvedOrder> updates = new ArrayList<>(idsArr.length);
+
+        jdbc.execute((ConnectionCallback<Void>) conn -> {
+            Array arr = conn.createArrayOf("bigint", idsArr);
+            try (var ps = conn.prepareStatement(SELECT_COORDINATES_SQL)) {
+                ps.setArray(1, arr);
+                ps.setLong(2, minTimestamp);
+                ps.setLong(3, maxTimestamp);
+                try (var rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long id = rs.getLong("id");
+                        long timestamp = rs.getLong("timestamp");
+                        jurisdictionResolver.resolve(rs.getBigDecimal("latitude"), rs.getBigDecimal("longitude"))
+                                .ifPresent(match -> updates.add(new ResolvedOrder(id, timestamp, match)));
+                    }
+                }
+            }
+            return null;
+        });
+
+        if (updates.isEmpty()) return 0;
+
+        int[][] counts = jdbc.batchUpdate(APPLY_RATES_SQL, updates, updates.size(), (ps, u) -> {
+            JurisdictionMatch match = u.match();
+            BigDecimal composite = match.compositeRate();
+            ps.setBigDecimal(1, match.stateRate());
+            ps.setBigDecimal(2, match.countyRate());
+            ps.setBigDecimal(3, match.cityRate());
+            ps.setString(4, toJson(match.specialRates()));
+            ps.setBigDecimal(5, composite);
+            ps.setBigDecimal(6, composite);
+            ps.setBigDecimal(7, composite);
+            ps.setString(8, toJson(match.jurisdictions()));
+            ps.setObject(9, match.stateId(), Types.BIGINT);
+            ps.setObject(10, match.countyId(), Types.BIGINT);
+            ps.setObject(11, match.cityId(), Types.BIGINT);
+            ps.setArray(12, match.specialIds() != null
+                    ? ps.getConnection().createArrayOf("bigint", match.specialIds())
+                    : null);
+            ps.setLong(13, u.orderId());
+            ps.setLong(14, u.timestamp());
+        });
+
+        int total = 0;
+        for (int[] batch : counts) for (int c : batch) total += c;
+        return total;
+    }
+
+    private String toJson(Object value) {
+        if (value == null) return null;
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialise calculation result", e);
+        }
+    }
+
+    private record ResolvedOrder(long orderId, long timestamp, JurisdictionMatch match) {}
+
+    /** Claimed ids in id order, with the timestamp range that bounds them to their partitions. */
+    private record ClaimedBatch(Long[] ids, long minTimestamp, long maxTimestamp) {}
+
+    /**
+     * Claims the next batch of pending orders for the current transaction. Rows already claimed by
+     * another worker or node are skipped rather than waited on, so concurrent claimers always get
+     * disjoint batches. The ordered scan is served by the partial pending-orders indexes; it has no
+     * timestamp bound, so it visits each partition's (small) pending index. The statements that
+     * follow carry the claimed timestamp range and only touch the partitions holding the batch.
+     *
+     * @return the claimed batch, or {@code null} when nothing is pending
+     */
+    private ClaimedBatch claimPending(String importBatchId) {
+        List<Long> ids = new ArrayList<>(BATCH_SIZE);
+        long[] range = {Long.MAX_VALUE, Long.MIN_VALUE};
+        jdbc.query(
+                "SELECT id, timestamp FROM orders WHERE " + pendingFilter(importBatchId) +
+                " ORDER BY id LIMIT " + BATCH_SIZE + " FOR UPDATE SKIP LOCKED",
+                (RowCallbackHandler) rs -> {
+                    ids.add(rs.getLong("id"));
+                    long ts = rs.getLong("timestamp");
+                    range[0] = Math.min(range[0], ts);
+                    range[1] = Math.max(range[1], ts);
+                },
+                pendingArgs(importBatchId));
+        if (ids.isEmpty()) return null;
+        return new ClaimedBatch(ids.toArray(new Long[0]), range[0], range[1]);
+    }
+
+    private static String pendingFilter(String importBatchId) {
+        return importBatchId != null
+                ? "status = 'ADDED' AND import_batch_id = ?"
+                : "status = 'ADDED'";
+    }
+
+    private static Object[] pendingArgs(String importBatchId, Object... extra) {
+        if (importBatchId == null) return extra;
+        Object[] args = new Object[extra.length + 1];
+        args[0] = importBatchId;
+        System.arraycopy(extra, 0, args, 1, extra.length);
+        return args;
+    }
 }
@@ -0,0 +1,118 @@
+package com.example.server.repository.native_query;
+
+import com.example.server.dto.order.CalculationJob;
+import com.example.server.enums.CalculationJobStatus;
+import com.example.server.enums.OutOfScopeHandling;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Database-backed queue of import calculations shared by every backend instance.
+ *
+ * A job is owned by the node holding its lease. The owner renews the lease while it works;
+ * a job whose lease has run out (the owner died or stalled) is claimable again by any node
+ * and continues from the import checkpoint.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CalculationJobNativeRepository {
+
+    private static final String CLAIM_SQL = """
+            UPDATE calculation_jobs j
+            SET status           = 'RUNNING',
+                lease_owner      = ?,
+                lease_expires_at = now() + make_interval(secs => ?),
+                attempts         = j.attempts + 1,
+                updated_at       = now()
+            WHERE j.id = (
+                SELECT id FROM calculation_jobs
+                WHERE status = 'QUEUED'
+                   OR (status = 'RUNNING' AND lease_expires_at < now())
+                ORDER BY id
+                LIMIT 1
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING j.id, j.tracking_id, j.out_of_scope_handling, j.attempts
+            """;
+
+    private static final String RENEW_SQL = """
+            UPDATE calculation_jobs
+            SET lease_expires_at = now() + make_interval(secs => ?), updated_at = now()
+            WHERE id = ANY(?) AND lease_owner = ? AND status = 'RUNNING'
+            RETURNING id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void enqueue(String trackingId, OutOfScopeHandling oosPolicy) {
+        jdbcTemplate.update("""
+                INSERT INTO calculation_jobs (tracking_id, status, out_of_scope_handling)
+                VALUES (?, 'QUEUED', ?)
+                ON CONFLICT (tracking_id) DO UPDATE
+                SET status = 'QUEUED', out_of_scope_handling = EXCLUDED.out_of_scope_handling,
+                    attempts = 0, lease_owner = NULL, lease_expires_at = NULL, last_error = NULL, updated_at = now()
+                """, trackingId, oosPolicy.name());
+    }
+
+    public Optional<CalculationJob> claimNext(String nodeId, int leaseSeconds) {
+        return jdbcTemplate.query(CLAIM_SQL, (rs, n) -> new CalculationJob(
+                        rs.getLong("id"),
+                        rs.getString("tracking_id"),
+                        OutOfScopeHandling.valueOf(rs.getString("out_of_scope_handling")),
+                        rs.getInt("attempts")),
+                nodeId, leaseSeconds).stream().findFirst();
+    }
+
+    /**
+     * @return the ids whose lease is still held by {@code nodeId}
+     */
+    public List<Long> renewLeases(String nodeId, Collection<Long> jobIds, int leaseSeconds) {
+        if (jobIds.isEmpty()) return List.of();
+        return Objects.requireNonNull(jdbcTemplate.execute((ConnectionCallback<List<Long>>) conn -> {
+            Array ids = conn.createArrayOf("bigint", jobIds.toArray(new Long[0]));
+            try (var ps = conn.prepareStatement(RENEW_SQL)) {
+                ps.setInt(1, leaseSeconds);
+                ps.setArray(2, ids);
+                ps.setString(3, nodeId);
+                List<Long> renewed = new ArrayList<>();
+                try (var rs = ps.executeQuery()) {
+                    while (rs.next()) renewed.add(rs.getLong(1));
+                }
+                return renewed;
+            }
+        }));
+    }
+
+    /**
+     * Ends the job with {@code status} only while {@code nodeId} still owns it.
+     *
+     * @return {@code false} if the lease was lost to another node in the meantime
+     */
+    public boolean release(long jobId, String nodeId, CalculationJobStatus status, String error) {
+        return jdbcTemplate.update("""
+                UPDATE calculation_jobs
+                SET status = ?, last_error = ?, lease_owner = NULL, lease_expires_at = NULL, updated_at = now()
+                WHERE id = ? AND lease_owner = ? AND status = 'RUNNING'
+                """, status.name(), error, jobId, nodeId) > 0;
+    }
+
+    /**
+     * Imports being calculated under another node's live lease; idle nodes help drain them.
+     */
+    public List<String> findLeasedElsewhere(String nodeId) {
+        return jdbcTemplate.queryForList("""
+                SELECT tracking_id FROM calculation_jobs
+                WHERE status = 'RUNNING' AND lease_expires_at > now() AND lease_owner <> ?
+                ORDER BY id
+                """, String.class, nodeId);
+    }
+}
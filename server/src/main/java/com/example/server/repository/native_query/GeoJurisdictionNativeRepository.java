@@ -0,0 +1,64 @@
+package com.example.server.repository.native_query;
+
+import com.example.server.dto.jurisdiction.JurisdictionDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class GeoJurisdictionNativeRepository {
+
+    private static final String SEARCH_SQL = """
+            SELECT id, type, name
+            FROM geo_jurisdictions
+            WHERE (lower(name) LIKE ? ESCAPE '\\' OR lower(name) %% ?)
+              %s
+            ORDER BY lower(name) LIKE ? ESCAPE '\\' DESC,
+                     lower(name) LIKE ? ESCAPE '\\' DESC,
+                     similarity(lower(name), ?) DESC,
+                     name
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Prefix matches first, then other substring matches, then trigram-similar names for typos.
+     * Both predicates are served by the gin_trgm_ops index on lower(name).
+     * {@code %} and {@code _} in the query match themselves.
+     */
+    public List<JurisdictionDto> search(String lowerQuery, String type, int limit) {
+        String literal = escapeLike(lowerQuery);
+        String contains = "%" + literal + "%";
+        String prefix = literal + "%";
+        String sql = SEARCH_SQL.formatted(type != null ? "AND type = ?" : "");
+        Object[] args = type != null
+                ? new Object[]{contains, lowerQuery, type, prefix, contains, lowerQuery, limit}
+                : new Object[]{contains, lowerQuery, prefix, contains, lowerQuery, limit};
+
+        return jdbcTemplate.query(sql, (rs, n) -> JurisdictionDto.builder()
+                .id(rs.getLong("id"))
+                .type(rs.getString("type"))
+                .name(rs.getString("name"))
+                .build(), args);
+    }
+
+    public List<Long> findIdsByNameContaining(String type, String fragment) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM geo_jurisdictions WHERE type = ? AND lower(name) LIKE ? ESCAPE '\\' ORDER BY id",
+                Long.class, type, "%" + escapeLike(fragment.strip().toLowerCase()) + "%");
+    }
+
+    public List<Long> findIdsByName(String type, String name) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM geo_jurisdictions WHERE type = ? AND name = ? ORDER BY id",
+                Long.class, type, name.strip());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
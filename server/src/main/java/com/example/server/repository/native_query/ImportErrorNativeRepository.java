@@ -0,0 +1,138 @@
+package com.example.server.repository.native_query;
+
+import com.example.server.dto.order.ImportRowError;
+import com.example.server.enums.ImportErrorReason;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+@Repository
+@RequiredArgsConstructor
+public class ImportErrorNativeRepository {
+
+    private static final String COPY_SQL =
+            "COPY import_errors (tracking_id, row_number, external_id, reason, field, message, raw_row) " +
+            "FROM STDIN WITH (FORMAT csv)";
+
+    private static final String SELECT_SQL = """
+            SELECT row_number, external_id, reason, field, message, raw_row
+            FROM import_errors
+            WHERE tracking_id = ?
+            ORDER BY row_number NULLS FIRST, id
+            """;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final RowMapper<ImportRowError> ROW_MAPPER = (rs, n) -> ImportRowError.builder()
+            .rowNumber(rs.getObject("row_number", Integer.class))
+            .externalId(rs.getObject("external_id", Long.class))
+            .reason(ImportErrorReason.valueOf(rs.getString("reason")))
+            .field(rs.getString("field"))
+            .message(rs.getString("message"))
+            .rawRow(rs.getString("raw_row"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public long copy(String trackingId, List<ImportRowError> errors) {
+        if (errors.isEmpty()) return 0;
+        return Objects.requireNonNull(jdbcTemplate.execute((ConnectionCallback<Long>) conn -> {
+            PGCopyOutputStream out = new PGCopyOutputStream(
+                    conn.unwrap(PGConnection.class), COPY_SQL, COPY_BUFFER_SIZE);
+            try {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                for (ImportRowError e : errors) {
+                    writer.write(trackingId);
+                    writer.write(',');
+                    if (e.getRowNumber() != null) writer.write(e.getRowNumber().toString());
+                    writer.write(',');
+                    if (e.getExternalId() != null) writer.write(e.getExternalId().toString());
+                    writer.write(',');
+                    writer.write((e.getReason() != null ? e.getReason() : ImportErrorReason.UNKNOWN).name());
+                    writer.write(',');
+                    writeText(writer, e.getField());
+                    writer.write(',');
+                    writeText(writer, e.getMessage());
+                    writer.write(',');
+                    writeText(writer, e.getRawRow());
+                    writer.write('\n');
+                }
+                writer.flush();
+                return out.endCopy();
+            } catch (IOException ex) {
+                out.cancelCopy();
+                throw new SQLException("COPY into import_errors failed: " + ex.getMessage(), ex);
+            }
+        }));
+    }
+
+    /**
+     * Out-of-scope rows are reported straight from orders, without passing through the heap.
+     * Rows already reported are skipped, so a job retried after a failed release does not repeat them.
+     */
+    public int insertOutOfScope(String trackingId) {
+        return jdbcTemplate.update("""
+                INSERT INTO import_errors (tracking_id, row_number, external_id, reason, field, message, raw_row)
+                SELECT ?, o.import_row_number, o.external_id, 'OUT_OF_SCOPE', 'latitude/longitude',
+                       'Point is outside NY State polygon.',
+                       concat_ws(',', COALESCE(o.external_id::text, ''), o.latitude, o.longitude, o.timestamp, o.subtotal)
+                FROM orders o
+                WHERE o.import_batch_id = ? AND o.status = 'OUT_OF_SCOPE'
+                  AND NOT EXISTS (
+                      SELECT 1 FROM import_errors e
+                      WHERE e.tracking_id = ? AND e.row_number = o.import_row_number AND e.reason = 'OUT_OF_SCOPE'
+                  )
+                """, trackingId, trackingId, trackingId);
+    }
+
+    public long count(String trackingId) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM import_errors WHERE tracking_id = ?", Long.class, trackingId);
+        return count != null ? count : 0;
+    }
+
+    public List<ImportRowError> findPage(String trackingId, long offset, int limit) {
+        return jdbcTemplate.query(SELECT_SQL + " OFFSET ? LIMIT ?", ROW_MAPPER, trackingId, offset, limit);
+    }
+
+    /**
+     * Reads through a server-side cursor; must run inside a transaction for the fetch size to apply.
+     */
+    public void forEach(String trackingId, long offset, int fetchSize, Consumer<ImportRowError> consumer) {
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(SELECT_SQL + " OFFSET ?");
+            ps.setFetchSize(fetchSize);
+            ps.setString(1, trackingId);
+            ps.setLong(2, offset);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(ROW_MAPPER.mapRow(rs, 0)));
+    }
+
+    public int deleteOlderThan(Instant cutoff) {
+        return jdbcTemplate.update("DELETE FROM import_errors WHERE created_at < ?", Timestamp.from(cutoff));
+    }
+
+    /** Always quoted, so empty strings stay empty and a lone \. can never end the COPY stream. */
+    private static void writeText(Writer writer, String value) throws IOException {
+        if (value == null) return;
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -2,16 +2,33 @@ package com.example.server.repository.native_query;
 
 import com.example.server.dto.order.ImportableRow;
 import com.example.server.dto.order.OrderCsvRow;
+import com.example.server.entity.Order;
+import com.example.server.enums.ImportInsertMode;
 import com.example.server.enums.OrderStatus;
 import com.example.server.util.OrderCsvParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 @Slf4j
@@ -25,13 +42,91 @@ public class OrderNativeRepository {
             "INSERT INTO orders (external_id, latitude, longitude, timestamp, subtotal, status, csv_imported, created_by, created_at, updated_at) " +
             "VALUES (?, ?, ?, ?, ?, ?, ?, ?, now(), now())";
 
+    private static final String INSERT_IMPORT_SQL =
+            "INSERT INTO orders (external_id, latitude, longitude, timestamp, subtotal, status, csv_imported, created_by, " +
+            "import_batch_id, import_row_number, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, now(), now())";
+
+    private static final String COPY_IMPORT_SQL =
+            "COPY orders (external_id, latitude, longitude, timestamp, subtotal, status, csv_imported, created_by, " +
+            "import_batch_id, import_row_number, created_at, updated_at) FROM STDIN WITH (FORMAT csv)";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String INSERT_CALCULATED_SQL =
+            "INSERT INTO orders (external_id, latitude, longitude, timestamp, subtotal, status, csv_imported, created_by, " +
+            "composite_tax_rate, tax_amount, total_amount, state_rate, county_rate, city_rate, special_rates, jurisdictions, " +
+            "state_id, county_id, city_id, special_ids, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, false, ?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb), CAST(? AS jsonb), ?, ?, ?, ?, now(), now()) " +
+            "RETURNING id, latitude, longitude, subtotal, composite_tax_rate, tax_amount, total_amount, created_at, updated_at";
+
     private static final String UPDATE_SQL =
             "UPDATE orders SET latitude = ?, longitude = ?, timestamp = ?, subtotal = ?, " +
-            "status = '" + OrderStatus.ADDED.name() + "', updated_at = now() " +
+            "status = '" + OrderStatus.ADDED.name() + "', import_batch_id = ?, import_row_number = ?, updated_at = now() " +
             "WHERE external_id = ?";
 
     private final JdbcTemplate jdbcTemplate;
     private final OrderCsvParser csvParser;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.import.insert-mode:batch}")
+    private ImportInsertMode insertMode;
+
+    /**
+     * Planner row estimate for orders, summed over its partitions; -1 until none has been analysed.
+     */
+    public long estimateRowCount() {
+        Long estimate = jdbcTemplate.queryForObject("""
+                SELECT CASE WHEN COUNT(*) FILTER (WHERE c.reltuples >= 0) = 0 THEN -1
+                            ELSE SUM(GREATEST(c.reltuples, 0))::bigint END
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'orders'::regclass
+                """, Long.class);
+        return estimate != null ? estimate : -1;
+    }
+
+    /**
+     * Writes an order whose taxes are already known in a single round trip. The returned values
+     * reflect the column precision the row was stored with, so no refresh is needed afterwards.
+     */
+    public Order insertCalculated(Order order) {
+        return jdbcTemplate.query(INSERT_CALCULATED_SQL, ps -> {
+            if (order.getExternalId() != null) ps.setLong(1, order.getExternalId()); else ps.setNull(1, Types.BIGINT);
+            ps.setBigDecimal(2, order.getLatitude());
+            ps.setBigDecimal(3, order.getLongitude());
+            ps.setLong(4, order.getTimestamp());
+            ps.setBigDecimal(5, order.getSubtotal());
+            ps.setString(6, order.getStatus().name());
+            ps.setLong(7, order.getCreatedBy());
+            ps.setObject(8, order.getCompositeTaxRate(), Types.NUMERIC);
+            ps.setObject(9, order.getTaxAmount(), Types.NUMERIC);
+            ps.setObject(10, order.getTotalAmount(), Types.NUMERIC);
+            ps.setObject(11, order.getStateRate(), Types.NUMERIC);
+            ps.setObject(12, order.getCountyRate(), Types.NUMERIC);
+            ps.setObject(13, order.getCityRate(), Types.NUMERIC);
+            ps.setString(14, toJson(order.getSpecialRates()));
+            ps.setString(15, toJson(order.getJurisdictions()));
+            ps.setObject(16, order.getStateId(), Types.BIGINT);
+            ps.setObject(17, order.getCountyId(), Types.BIGINT);
+            ps.setObject(18, order.getCityId(), Types.BIGINT);
+            ps.setArray(19, order.getSpecialIds() != null
+                    ? ps.getConnection().createArrayOf("bigint", order.getSpecialIds())
+                    : null);
+        }, rs -> {
+            rs.next();
+            order.setId(rs.getLong("id"));
+            order.setLatitude(rs.getBigDecimal("latitude"));
+            order.setLongitude(rs.getBigDecimal("longitude"));
+            order.setSubtotal(rs.getBigDecimal("subtotal"));
+            order.setCompositeTaxRate(rs.getBigDecimal("composite_tax_rate"));
+            order.setTaxAmount(rs.getBigDecimal("tax_amount"));
+            order.setTotalAmount(rs.getBigDecimal("total_amount"));
+            order.setCreatedAt(rs.getTimestamp("created_at").toInstant());
+            order.setUpdatedAt(rs.getTimestamp("updated_at").toInstant());
+            return order;
+        });
+    }
 
     @Transactional
     public int batchInsert(List<OrderCsvRow> rows, Long userId) {
@@ -56,11 +151,61 @@ public class OrderNativeRepository {
     }
 
     @Transactional
-    public int batchInsertRows(List<ImportableRow> rows, Long userId) {
+    public int insertImportRows(List<ImportableRow> rows, Long userId, String importBatchId) {
+        return insertMode == ImportInsertMode.COPY
+                ? copyInsertRows(rows, userId, importBatchId)
+                : batchInsertRows(rows, userId, importBatchId);
+    }
+
+    @Transactional
+    public int copyInsertRows(List<ImportableRow> rows, Long userId, String importBatchId) {
+        String createdAt = Instant.now().toString();
+        long copied = Objects.requireNonNull(jdbcTemplate.execute((ConnectionCallback<Long>) conn -> {
+            PGCopyOutputStream out = new PGCopyOutputStream(
+                    conn.unwrap(PGConnection.class), COPY_IMPORT_SQL, COPY_BUFFER_SIZE);
+            try {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                for (ImportableRow row : rows) {
+                    if (row.getExternalId() != null) writer.write(row.getExternalId().toString());
+                    writer.write(',');
+                    writer.write(row.getLatitude().toPlainString());
+                    writer.write(',');
+                    writer.write(row.getLongitude().toPlainString());
+                    writer.write(',');
+                    writer.write(Long.toString(row.getTimestamp()));
+                    writer.write(',');
+                    writer.write(row.getSubtotal().toPlainString());
+                    writer.write(',');
+                    writer.write(OrderStatus.ADDED.name());
+                    writer.write(",true,");
+                    writer.write(userId.toString());
+                    writer.write(',');
+                    writer.write(importBatchId);
+                    writer.write(',');
+                    writer.write(Integer.toString(row.getRowNumber()));
+                    writer.write(',');
+                    writer.write(createdAt);
+                    writer.write(',');
+                    writer.write(createdAt);
+                    writer.write('\n');
+                }
+                writer.flush();
+                return out.endCopy();
+            } catch (IOException e) {
+                out.cancelCopy();
+                throw new SQLException("COPY into orders failed: " + e.getMessage(), e);
+            }
+        }));
+        log.debug("CSV copy insert: {} rows", copied);
+        return (int) copied;
+    }
+
+    @Transactional
+    public int batchInsertRows(List<ImportableRow> rows, Long userId, String importBatchId) {
         int total = 0;
         for (int i = 0; i < rows.size(); i += BATCH_SIZE) {
             List<ImportableRow> chunk = rows.subList(i, Math.min(i + BATCH_SIZE, rows.size()));
-            jdbcTemplate.batchUpdate(INSERT_SQL, chunk, chunk.size(), (ps, row) -> {
+            jdbcTemplate.batchUpdate(INSERT_IMPORT_SQL, chunk, chunk.size(), (ps, row) -> {
                 if (row.getExternalId() != null) ps.setLong(1, row.getExternalId());
                 else ps.setNull(1, java.sql.Types.BIGINT);
                 ps.setBigDecimal(2, row.getLatitude());
@@ -70,15 +215,17 @@ public class OrderNativeRepository {
                 ps.setString(6, OrderStatus.ADDED.name());
                 ps.setBoolean(7, true);
                 ps.setLong(8, userId);
+                ps.setString(9, importBatchId);
+                ps.setInt(10, row.getRowNumber());
             });
             total += chunk.size();
         }
-        log.info("CSV batch insert (with handling): {} rows", total);
+        log.debug("CSV batch insert (with handling): {} rows", total);
         return total;
     }
 
     @Transactional
-    public int batchOverwriteRows(List<ImportableRow> rows) {
+    public int batchOverwriteRows(List<ImportableRow> rows, String importBatchId) {
         int total = 0;
         for (int i = 0; i < rows.size(); i += BATCH_SIZE) {
             List<ImportableRow> chunk = rows.subList(i, Math.min(i + BATCH_SIZE, rows.size()));
@@ -87,27 +234,39 @@ public class OrderNativeRepository {
                 ps.setBigDecimal(2, row.getLongitude());
                 ps.setLong(3, row.getTimestamp());
                 ps.setBigDecimal(4, row.getSubtotal());
-                ps.setLong(5, row.getExternalId());
+                ps.setString(5, importBatchId);
+                ps.setInt(6, row.getRowNumber());
+                ps.setLong(7, row.getExternalId());
             });
             for (int[] batch : counts) for (int c : batch) total += c;
         }
-        log.info("CSV batch overwrite: {} rows updated", total);
+        log.debug("CSV batch overwrite: {} rows updated", total);
         return total;
     }
 
     public Set<Long> getExistingExternalIds(List<Long> externalIds) {
         if (externalIds.isEmpty()) return new HashSet<>();
-        String placeholders = String.join(",", externalIds.stream().map(id -> "?").toList());
-        String sql = "SELECT DISTINCT external_id FROM orders WHERE external_id IN (" + placeholders + ")";
-        List<Long> found = jdbcTemplate.queryForList(sql, Long.class, externalIds.toArray());
-        return new HashSet<>(found);
+        Long[] idsArr = externalIds.toArray(new Long[0]);
+        return Objects.requireNonNull(jdbcTemplate.execute((ConnectionCallback<Set<Long>>) conn -> {
+            Array arr = conn.createArrayOf("bigint", idsArr);
+            try (var ps = conn.prepareStatement(
+                    "SELECT DISTINCT external_id FROM orders WHERE external_id = ANY(?)")) {
+                ps.setArray(1, arr);
+                Set<Long> found = new HashSet<>();
+                try (var rs = ps.executeQuery()) {
+                    while (rs.next()) found.add(rs.getLong(1));
+                }
+                return found;
+            }
+        }));
     }
 
-    public List<Long> findOutOfScopeExternalIds(List<Long> externalIds) {
-        if (externalIds.isEmpty()) return List.of();
-        String placeholders = String.join(",", externalIds.stream().map(id -> "?").toList());
-        String sql = "SELECT DISTINCT external_id FROM orders WHERE status = 'OUT_OF_SCOPE' " +
-                     "AND external_id IN (" + placeholders + ")";
-        return jdbcTemplate.queryForList(sql, Long.class, externalIds.toArray());
+    private String toJson(Object value) {
+        if (value == null) return null;
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialise calculation result", e);
+        }
     }
 }
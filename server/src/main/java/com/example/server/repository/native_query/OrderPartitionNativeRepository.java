@@ -0,0 +1,74 @@
+package com.example.server.repository.native_query;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderPartitionNativeRepository {
+
+    private static final String PARTITION_PREFIX = "orders_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<YearMonth> findMonthlyPartitions() {
+        return jdbcTemplate.queryForList("""
+                        SELECT c.relname
+                        FROM pg_inherits i
+                        JOIN pg_class c ON c.oid = i.inhrelid
+                        WHERE i.inhparent = 'orders'::regclass
+                          AND c.relname ~ '^orders_p[0-9]{6}$'
+                        ORDER BY c.relname
+                        """, String.class).stream()
+                .map(name -> YearMonth.parse(name.substring(PARTITION_PREFIX.length()), SUFFIX))
+                .toList();
+    }
+
+    /**
+     * Months with rows parked in orders_default, i.e. written before their partition existed.
+     */
+    public List<YearMonth> findDefaultPartitionMonths() {
+        return jdbcTemplate.queryForList("""
+                        SELECT DISTINCT to_char(to_timestamp("timestamp" / 1000.0) AT TIME ZONE 'UTC', 'YYYYMM')
+                        FROM orders_default
+                        """, String.class).stream()
+                .map(month -> YearMonth.parse(month, SUFFIX))
+                .toList();
+    }
+
+    /**
+     * Creates the partition under {@code lock_timeout}, so a running scan of orders_default makes
+     * this fail fast instead of queueing every other reader and writer of orders behind the
+     * ATTACH. On timeout the whole transaction rolls back and the month's rows stay in orders_default.
+     *
+     * @return {@code true} if the partition was created by this call
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean createPartition(YearMonth month, long lockTimeoutMs) {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMs);
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT create_orders_partition(?)", Boolean.class, month.atDay(1)));
+    }
+
+    /**
+     * Detaching and dropping a partition is a catalog change; no rows are scanned or deleted
+     * one by one, so the statement triggers on orders do not fire and tax_daily_totals keeps them.
+     * DETACH locks orders exclusively (CONCURRENTLY is ruled out by orders_default), so it runs
+     * under {@code lock_timeout} like {@link #createPartition}; on timeout nothing is detached.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void dropPartition(YearMonth month, long lockTimeoutMs) {
+        String name = PARTITION_PREFIX + month.format(SUFFIX);
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMs);
+        jdbcTemplate.execute("ALTER TABLE orders DETACH PARTITION " + name);
+        jdbcTemplate.execute("DROP TABLE " + name);
+    }
+}
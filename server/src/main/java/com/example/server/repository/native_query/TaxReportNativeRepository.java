@@ -0,0 +1,63 @@
+package com.example.server.repository.native_query;
+
+import com.example.server.dto.report.TaxTotalRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class TaxReportNativeRepository {
+
+    private static final String TOTALS_SQL = """
+            SELECT to_char(date_trunc('%s', t.period_day), '%s') AS period,
+                   g.id, g.type, g.name,
+                   SUM(t.order_count) AS order_count,
+                   SUM(t.taxable_amount) AS taxable_amount,
+                   SUM(t.tax_amount) AS tax_amount
+            FROM tax_daily_totals t
+            JOIN geo_jurisdictions g ON g.id = t.jurisdiction_id
+            WHERE t.period_day BETWEEN ? AND ?
+              %s
+            GROUP BY 1, g.id, g.type, g.name
+            HAVING SUM(t.order_count) <> 0
+            ORDER BY 1, g.type, g.name
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reads the pre-aggregated daily rows maintained by the orders triggers; a month is the sum
+     * of its days, so neither granularity touches the orders table.
+     */
+    public List<TaxTotalRow> findTotals(boolean monthly, LocalDate from, LocalDate to,
+                                        String type, Long jurisdictionId) {
+        List<Object> args = new ArrayList<>(List.of(from, to));
+        StringBuilder filters = new StringBuilder();
+        if (type != null) {
+            filters.append("AND g.type = ? ");
+            args.add(type);
+        }
+        if (jurisdictionId != null) {
+            filters.append("AND t.jurisdiction_id = ? ");
+            args.add(jurisdictionId);
+        }
+
+        String sql = TOTALS_SQL.formatted(
+                monthly ? "month" : "day", monthly ? "YYYY-MM" : "YYYY-MM-DD", filters);
+
+        return jdbcTemplate.query(sql, (rs, n) -> TaxTotalRow.builder()
+                .period(rs.getString("period"))
+                .jurisdictionId(rs.getLong("id"))
+                .jurisdictionType(rs.getString("type"))
+                .jurisdictionName(rs.getString("name"))
+                .orderCount(rs.getLong("order_count"))
+                .taxableAmount(rs.getBigDecimal("taxable_amount"))
+                .taxAmount(rs.getBigDecimal("tax_amount"))
+                .build(), args.toArray());
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.server.service;
+
+import com.example.server.dto.order.CalculationJob;
+import com.example.server.enums.OutOfScopeHandling;
+import com.example.server.repository.ImportBatchRepository;
+import com.example.server.repository.native_query.CalculationJobNativeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pulls import calculations from calculation_jobs on every backend instance.
+ *
+ * Each node runs up to {@code max-concurrent} jobs under a lease it renews on every heartbeat;
+ * jobs of a node that stops heartbeating are reclaimed by the others once the lease expires.
+ * Heartbeats run on their own thread, so slow scheduled work elsewhere cannot starve them, and a
+ * job whose lease is found lost stops calculating instead of running alongside its new owner.
+ * An idle node helps drain imports leased elsewhere — the order batches themselves are claimed
+ * with SKIP LOCKED, so nodes never calculate the same rows. Subscribers connected to a node that
+ * does not own the job get progress relayed from the import_batches counters.
+ */
+@Slf4j
+@Component
+public class CalculationJobScheduler {
+
+    private final CalculationJobNativeRepository jobRepository;
+    private final CalculationTriggerService calculationTriggerService;
+    private final TaxCalculationService taxCalculationService;
+    private final CalculationProgressStore progressStore;
+    private final ImportBatchRepository importBatchRepository;
+    private final Executor jobExecutor;
+    private final String nodeId;
+    private final int maxConcurrent;
+    private final int leaseSeconds;
+    private final boolean assist;
+
+    private final long heartbeatMillis;
+
+    private final Map<Long, OwnedJob> ownedJobs = new ConcurrentHashMap<>();
+    private final Set<String> assisting = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+
+    public CalculationJobScheduler(CalculationJobNativeRepository jobRepository,
+                                   CalculationTriggerService calculationTriggerService,
+                                   TaxCalculationService taxCalculationService,
+                                   CalculationProgressStore progressStore,
+                                   ImportBatchRepository importBatchRepository,
+                                   @Qualifier("calculationExecutor") Executor jobExecutor,
+                                   @Value("${app.tax.calculation.jobs.node-id:}") String nodeId,
+                                   @Value("${app.tax.calculation.jobs.max-concurrent:2}") int maxConcurrent,
+                                   @Value("${app.tax.calculation.jobs.lease-seconds:60}") int leaseSeconds,
+                                   @Value("${app.tax.calculation.jobs.assist:true}") boolean assist,
+                                   @Value("${app.tax.calculation.jobs.heartbeat-ms:15000}") long heartbeatMillis) {
+        this.jobRepository = jobRepository;
+        this.calculationTriggerService = calculationTriggerService;
+        this.taxCalculationService = taxCalculationService;
+        this.progressStore = progressStore;
+        this.importBatchRepository = importBatchRepository;
+        this.jobExecutor = jobExecutor;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.maxConcurrent = maxConcurrent;
+        this.leaseSeconds = leaseSeconds;
+        this.assist = assist;
+        this.heartbeatMillis = heartbeatMillis;
+        log.info("Calculation job node id: {}", this.nodeId);
+    }
+
+    @PostConstruct
+    void startHeartbeat() {
+        heartbeatScheduler.setPoolSize(1);
+        heartbeatScheduler.setThreadNamePrefix("calc-lease-");
+        heartbeatScheduler.initialize();
+        heartbeatScheduler.scheduleWithFixedDelay(this::heartbeat, Duration.ofMillis(heartbeatMillis));
+    }
+
+    @PreDestroy
+    void stopHeartbeat() {
+        heartbeatScheduler.shutdown();
+    }
+
+    /**
+     * Only queues the job; the next {@link #poll()} on any node picks it up.
+     */
+    public void submit(String trackingId, OutOfScopeHandling oosPolicy) {
+        jobRepository.enqueue(trackingId, oosPolicy);
+    }
+
+    @Scheduled(fixedDelayString = "${app.tax.calculation.jobs.poll-interval-ms:2000}")
+    public synchronized void poll() {
+        while (ownedJobs.size() < maxConcurrent) {
+            Optional<CalculationJob> claimed = jobRepository.claimNext(nodeId, leaseSeconds);
+            if (claimed.isEmpty()) break;
+            start(claimed.get());
+        }
+
+        if (assist && ownedJobs.isEmpty() && assisting.isEmpty()) {
+            jobRepository.findLeasedElsewhere(nodeId).stream().findFirst().ifPresent(this::assist);
+        }
+    }
+
+    void heartbeat() {
+        Set<Long> held = new HashSet<>(ownedJobs.keySet());
+        if (held.isEmpty()) return;
+
+        List<Long> renewed;
+        try {
+            renewed = jobRepository.renewLeases(nodeId, held, leaseSeconds);
+        } catch (RuntimeException e) {
+            // Unknown outcome; a lease that did expire shows up as not renewed next time.
+            log.warn("Renewing calculation job leases failed: {}", e.getMessage());
+            return;
+        }
+        held.removeAll(renewed);
+        for (Long id : held) {
+            OwnedJob job = ownedJobs.get(id);
+            if (job == null) continue;
+            job.leaseLost().set(true);
+            log.warn("Lease on calculation job {} (import {}) was lost; stopping it here.", id, job.trackingId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.tax.calculation.jobs.progress-relay-ms:2000}")
+    public void relayRemoteProgress() {
+        Set<String> local = new HashSet<>();
+        ownedJobs.values().forEach(job -> local.add(job.trackingId()));
+        for (String trackingId : progressStore.subscribedTrackingIds()) {
+            if (local.contains(trackingId)) continue;
+            importBatchRepository.findById(trackingId)
+                    .map(CalculationProgressStore::fromImportBatch)
+                    .ifPresent(event -> progressStore.emit(trackingId, event));
+        }
+    }
+
+    private void start(CalculationJob job) {
+        OwnedJob owned = new OwnedJob(job.trackingId(), new AtomicBoolean());
+        ownedJobs.put(job.id(), owned);
+        log.info("Claimed calculation job {} for import {} (attempt {}).", job.id(), job.trackingId(), job.attempts());
+        try {
+            jobExecutor.execute(() -> {
+                try {
+                    calculationTriggerService.runJob(job, nodeId, owned.leaseLost()::get);
+                } finally {
+                    ownedJobs.remove(job.id());
+                }
+            });
+        } catch (RuntimeException e) {
+            // Not accepted locally: the lease runs out and the job is picked up again.
+            ownedJobs.remove(job.id());
+            log.warn("Could not start calculation job {}: {}", job.id(), e.getMessage());
+        }
+    }
+
+    private void assist(String trackingId) {
+        assisting.add(trackingId);
+        try {
+            jobExecutor.execute(() -> {
+                try {
+                    int batches = taxCalculationService.assistImportBatch(trackingId);
+                    if (batches > 0) log.info("Helped import {} with {} batches.", trackingId, batches);
+                } catch (RuntimeException e) {
+                    log.warn("Helping import {} failed: {}", trackingId, e.getMessage());
+                } finally {
+                    assisting.remove(trackingId);
+                }
+            });
+        } catch (RuntimeException e) {
+            assisting.remove(trackingId);
+        }
+    }
+
+    private record OwnedJob(String trackingId, AtomicBoolean leaseLost) {}
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -1,71 +1,265 @@
 package com.example.server.service;
 
 import com.example.server.dto.order.CalculationProgressEvent;
+import com.example.server.entity.ImportBatch;
+import com.example.server.enums.CalculationStatus;
+import com.example.server.repository.ImportBatchRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
+/**
+ * Fans calculation progress out to any number of SSE subscribers per tracking id.
+ *
+ * The last {@code history-size} events of each tracking id are kept and replayed to new
+ * subscribers, so a client reconnecting mid-run catches up at once. Histories idle for longer
+ * than {@code ttl-ms} are evicted, and at most {@code max-tracked} are held (least recently
+ * updated go first). Past that, the import_batches row is the record: its counters are committed
+ * with every batch, so a finished calculation is replayed from it after eviction or a restart.
+ *
+ * {@link #emit} never touches the network: it drops the event into each subscriber's single-slot
+ * mailbox and schedules a send on the dispatch executor. A subscriber that is still busy with the
+ * previous send just has its slot overwritten, so slow clients see the latest totals instead of a
+ * backlog and the calculation threads never wait on them. Terminal events are never overwritten.
+ */
 @Slf4j
 @Component
 public class CalculationProgressStore {
 
     private static final long SSE_TIMEOUT_MS = 10 * 60 * 1000L;
 
-    private final Map<String, SseEmitter> emitters = new ConcurrentHashMap<>();
-    private final Map<String, CalculationProgressEvent> results = new ConcurrentHashMap<>();
+    private final Executor dispatchExecutor;
+    private final ImportBatchRepository importBatchRepository;
+    private final int historySize;
+    private final long ttlMillis;
+    private final int maxTracked;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, History> histories = new ConcurrentHashMap<>();
+
+    public CalculationProgressStore(@Qualifier("progressDispatchExecutor") Executor dispatchExecutor,
+                                    ImportBatchRepository importBatchRepository,
+                                    @Value("${app.progress.history-size:20}") int historySize,
+                                    @Value("${app.progress.ttl-ms:3600000}") long ttlMillis,
+                                    @Value("${app.progress.max-tracked:1000}") int maxTracked) {
+        this.dispatchExecutor = dispatchExecutor;
+        this.importBatchRepository = importBatchRepository;
+        this.historySize = historySize;
+        this.ttlMillis = ttlMillis;
+        this.maxTracked = maxTracked;
+    }
+
+    /**
+     * Progress as recorded on import_batches; {@code null} while the import has no calculation state.
+     */
+    public static CalculationProgressEvent fromImportBatch(ImportBatch batch) {
+        if (batch.getCalculationStatus() == null) return null;
+
+        int processed = batch.getCalculatedRows() + batch.getOutOfScopeRows();
+        String status = switch (batch.getCalculationStatus()) {
+            case IMPORTING, RUNNING -> "PROCESSING";
+            default -> batch.getCalculationStatus().name();
+        };
+
+        return CalculationProgressEvent.builder()
+                .trackingId(batch.getTrackingId())
+                .calculated(batch.getCalculatedRows())
+                .outOfScope(batch.getOutOfScopeRows())
+                .pending(Math.max(0, batch.getImportedRows() - processed))
+                .total(Math.max(batch.getImportedRows(), processed))
+                .status(status)
+                .build();
+    }
 
     public SseEmitter subscribe(String trackingId) {
         SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MS);
-        emitters.put(trackingId, emitter);
-        emitter.onCompletion(() -> emitters.remove(trackingId));
-        emitter.onTimeout(() -> emitters.remove(trackingId));
-        emitter.onError(e -> emitters.remove(trackingId));
-
-        CalculationProgressEvent cached = results.get(trackingId);
-        if (cached != null) {
-            send(emitter, trackingId, cached);
-        }
+        Subscriber subscriber = new Subscriber(trackingId, emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        CalculationProgressEvent persisted = histories.containsKey(trackingId) ? null
+                : importBatchRepository.findById(trackingId)
+                        .map(CalculationProgressStore::fromImportBatch)
+                        .orElse(null);
+
+        // Holding the history entry keeps emit out until the replay is queued and the subscriber is
+        // published, so every live event lands behind the replay and none falls between the two.
+        histories.compute(trackingId, (k, history) -> {
+            if (history != null) {
+                subscriber.replay(history.snapshot());
+            } else if (persisted != null) {
+                subscriber.replay(List.of(persisted));
+            }
+            subscribers.compute(k, (key, set) -> {
+                Set<Subscriber> target = set != null ? set : ConcurrentHashMap.newKeySet();
+                target.add(subscriber);
+                return target;
+            });
+            return history;
+        });
 
         return emitter;
     }
 
     public void emit(String trackingId, CalculationProgressEvent event) {
-        if (event.isTerminal()) {
-            results.put(trackingId, event);
-        }
+        histories.compute(trackingId, (k, history) -> {
+            History target = history != null ? history : new History();
+            target.append(event, historySize);
 
-        SseEmitter emitter = emitters.get(trackingId);
-        if (emitter != null) {
-            send(emitter, trackingId, event);
-        }
+            Set<Subscriber> current = subscribers.get(k);
+            if (current != null) {
+                current.forEach(s -> s.offer(event));
+            }
+            return target;
+        });
     }
 
+    /**
+     * The terminal event of a finished calculation, from memory or else from import_batches.
+     */
     public Optional<CalculationProgressEvent> getResult(String trackingId) {
-        return Optional.ofNullable(results.get(trackingId));
+        History history = histories.get(trackingId);
+        CalculationProgressEvent last = history != null ? history.last() : null;
+        if (last != null && last.isTerminal()) return Optional.of(last);
+
+        return importBatchRepository.findById(trackingId)
+                .map(CalculationProgressStore::fromImportBatch)
+                .filter(CalculationProgressEvent::isTerminal);
+    }
+
+    public Set<String> subscribedTrackingIds() {
+        return subscribers.entrySet().stream()
+                .filter(e -> !e.getValue().isEmpty())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toUnmodifiableSet());
     }
 
     public boolean hasTracking(String trackingId) {
-        return emitters.containsKey(trackingId) || results.containsKey(trackingId);
+        return subscribers.containsKey(trackingId) || histories.containsKey(trackingId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.progress.purge-interval-ms:60000}")
+    public void evictExpired() {
+        long cutoff = System.currentTimeMillis() - ttlMillis;
+        histories.entrySet().removeIf(e -> e.getValue().updatedAt < cutoff && !subscribers.containsKey(e.getKey()));
+
+        int excess = histories.size() - maxTracked;
+        if (excess <= 0) return;
+        histories.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().updatedAt))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(histories::remove);
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.trackingId, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
     }
 
-    private void send(SseEmitter emitter, String trackingId, CalculationProgressEvent event) {
-        try {
-            emitter.send(SseEmitter.event()
-                    .name("progress")
-                    .data(event));
+    private static final class History {
+        private final Deque<CalculationProgressEvent> events = new ArrayDeque<>();
+        private volatile long updatedAt = System.currentTimeMillis();
 
-            if (event.isTerminal()) {
+        synchronized void append(CalculationProgressEvent event, int limit) {
+            events.addLast(event);
+            while (events.size() > limit) events.removeFirst();
+            updatedAt = System.currentTimeMillis();
+        }
+
+        synchronized List<CalculationProgressEvent> snapshot() {
+            return List.copyOf(events);
+        }
+
+        synchronized CalculationProgressEvent last() {
+            return events.peekLast();
+        }
+    }
+
+    private final class Subscriber {
+        private final String trackingId;
+        private final SseEmitter emitter;
+        private final AtomicReference<CalculationProgressEvent> mailbox = new AtomicReference<>();
+        private final Queue<CalculationProgressEvent> backlog = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Subscriber(String trackingId, SseEmitter emitter) {
+            this.trackingId = trackingId;
+            this.emitter = emitter;
+        }
+
+        /** History is sent in full and ahead of anything offered live. */
+        void replay(List<CalculationProgressEvent> events) {
+            backlog.addAll(events);
+            schedule();
+        }
+
+        void offer(CalculationProgressEvent event) {
+            mailbox.getAndUpdate(pending -> pending != null && pending.isTerminal() ? pending : event);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) return;
+            try {
+                dispatchExecutor.execute(this::drain);
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+                log.warn("Progress dispatch rejected for {}: {}", trackingId, e.getMessage());
                 emitter.complete();
-                emitters.remove(trackingId);
+                unsubscribe(this);
+            }
+        }
+
+        private void drain() {
+            CalculationProgressEvent event;
+            while ((event = backlog.poll()) != null || (event = mailbox.getAndSet(null)) != null) {
+                if (!send(event)) return;
+            }
+            scheduled.set(false);
+            if (!backlog.isEmpty() || mailbox.get() != null) schedule();
+        }
+
+        private boolean send(CalculationProgressEvent event) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name("progress")
+                        .data(event));
+
+                if (event.isTerminal()) {
+                    emitter.complete();
+                    unsubscribe(this);
+                    return false;
+                }
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+                unsubscribe(this);
+                return false;
             }
-        } catch (IOException e) {
-            emitter.completeWithError(e);
-            emitters.remove(trackingId);
         }
     }
 }
@@ -1,19 +1,19 @@
 package com.example.server.service;
 
+import com.example.server.dto.order.CalculationJob;
 import com.example.server.dto.order.CalculationProgressEvent;
-import com.example.server.dto.order.ImportRowError;
-import com.example.server.dto.order.ImportableRow;
-import com.example.server.enums.ImportErrorReason;
+import com.example.server.entity.ImportBatch;
+import com.example.server.enums.CalculationJobStatus;
+import com.example.server.enums.CalculationStatus;
 import com.example.server.enums.OutOfScopeHandling;
-import com.example.server.repository.native_query.OrderNativeRepository;
+import com.example.server.repository.ImportBatchRepository;
+import com.example.server.repository.native_query.CalculationJobNativeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.function.BooleanSupplier;
 
 @Slf4j
 @Service
@@ -21,71 +21,68 @@ import java.util.Map;
 public class CalculationTriggerService {
 
     private final TaxCalculationService taxCalculationService;
-    private final OrderNativeRepository orderNativeRepository;
+    private final ImportBatchRepository importBatchRepository;
+    private final CalculationJobNativeRepository calculationJobRepository;
     private final ImportBatchStore importBatchStore;
     private final CalculationProgressStore progressStore;
 
-    @Async("calculationExecutor")
-    public void calculateAndTrack(String trackingId,
-                                  int importedRows,
-                                  List<Long> externalIds,
-                                  Map<Long, ImportableRow> externalIdMap,
-                                  OutOfScopeHandling oosPolicy) {
+    @Value("${app.tax.calculation.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * Runs a claimed job on the calling thread. The import is only marked finished while this node
+     * still holds the job's lease; a failed attempt goes back to the queue until max-attempts is reached.
+     * {@code leaseLost} turns true once a heartbeat finds the lease gone, and stops the run.
+     */
+    public void runJob(CalculationJob job, String nodeId, BooleanSupplier leaseLost) {
+        String trackingId = job.trackingId();
+        if (job.attempts() > maxAttempts) {
+            fail(job, nodeId, "Gave up after " + maxAttempts + " attempts");
+            return;
+        }
+
         try {
-            int[] totalCalculated = {0};
-            int[] totalOutOfScope = {0};
-
-            int calculated = taxCalculationService.calculatePendingOrders(batch -> {
-                totalCalculated[0] = batch.totalCalculated();
-                totalOutOfScope[0] = batch.totalOutOfScope();
-
-                progressStore.emit(trackingId, CalculationProgressEvent.builder()
-                        .trackingId(trackingId)
-                        .calculated(batch.totalCalculated())
-                        .outOfScope(batch.totalOutOfScope())
-                        .pending(Math.max(0, batch.totalPending() - batch.totalProcessed()))
-                        .total(batch.totalPending())
-                        .batchCalculated(batch.batchCalculated())
-                        .batchOutOfScope(batch.batchOutOfScope())
-                        .batchSize(batch.batchSize())
-                        .status("PROCESSING")
-                        .build());
-            });
-
-            if (oosPolicy == OutOfScopeHandling.FAIL && totalOutOfScope[0] > 0) {
-                List<Long> oosIds = orderNativeRepository.findOutOfScopeExternalIds(externalIds);
-                List<ImportRowError> oosErrors = new ArrayList<>();
-
-                for (Long oosExtId : oosIds) {
-                    ImportableRow row = externalIdMap.get(oosExtId);
-                    oosErrors.add(ImportRowError.builder()
-                            .rowNumber(row != null ? row.getRowNumber() : null)
-                            .externalId(oosExtId)
-                            .reason(ImportErrorReason.OUT_OF_SCOPE)
-                            .field("latitude/longitude")
-                            .message("Point is outside NY State polygon.")
-                            .rawRow(row != null ? row.getRawLine() : null)
-                            .build());
-                }
-
-                int unknownOos = totalOutOfScope[0] - oosIds.size();
-                for (int i = 0; i < unknownOos; i++) {
-                    oosErrors.add(ImportRowError.builder()
-                            .reason(ImportErrorReason.OUT_OF_SCOPE)
-                            .field("latitude/longitude")
-                            .message("Point is outside NY State polygon.")
-                            .build());
-                }
-
-                importBatchStore.appendErrors(trackingId, oosErrors);
+            taxCalculationService.calculateImportBatch(trackingId, batch ->
+                    progressStore.emit(trackingId, CalculationProgressEvent.builder()
+                            .trackingId(trackingId)
+                            .calculated(batch.totalCalculated())
+                            .outOfScope(batch.totalOutOfScope())
+                            .pending(Math.max(0, batch.totalPending() - batch.totalProcessed()))
+                            .total(batch.totalPending())
+                            .batchCalculated(batch.batchCalculated())
+                            .batchOutOfScope(batch.batchOutOfScope())
+                            .batchSize(batch.batchSize())
+                            .status("PROCESSING")
+                            .resumed(batch.resumed())
+                            .build()),
+                    leaseLost);
+
+            if (leaseLost.getAsBoolean()) {
+                log.warn("Stopped calculation job {} (import {}): lease lost to another node.", job.id(), trackingId);
+                return;
             }
 
-            int finalTotal = totalCalculated[0] + totalOutOfScope[0];
+            ImportBatch totals = importBatchRepository.findById(trackingId).orElseThrow();
+            int totalCalculated = totals.getCalculatedRows();
+            int totalOutOfScope = totals.getOutOfScopeRows();
+
+            if (job.outOfScopeHandling() == OutOfScopeHandling.FAIL && totalOutOfScope > 0) {
+                importBatchStore.appendOutOfScope(trackingId);
+            }
+
+            if (!calculationJobRepository.release(job.id(), nodeId, CalculationJobStatus.COMPLETED, null)) {
+                log.warn("Lost the lease on calculation job {} (import {}); leaving completion to its new owner.",
+                        job.id(), trackingId);
+                return;
+            }
+
+            importBatchRepository.updateCalculationStatus(trackingId, CalculationStatus.COMPLETED);
+            int finalTotal = totalCalculated + totalOutOfScope;
 
             progressStore.emit(trackingId, CalculationProgressEvent.builder()
                     .trackingId(trackingId)
-                    .calculated(totalCalculated[0])
-                    .outOfScope(totalOutOfScope[0])
+                    .calculated(totalCalculated)
+                    .outOfScope(totalOutOfScope)
                     .pending(0)
                     .total(finalTotal)
                     .batchCalculated(0)
@@ -95,19 +92,31 @@ public class CalculationTriggerService {
                     .build());
 
         } catch (Exception e) {
-            log.error("Async calculation failed for tracking {}: {}", trackingId, e.getMessage(), e);
-
-            progressStore.emit(trackingId, CalculationProgressEvent.builder()
-                    .trackingId(trackingId)
-                    .calculated(0)
-                    .outOfScope(0)
-                    .pending(0)
-                    .total(0)
-                    .batchCalculated(0)
-                    .batchOutOfScope(0)
-                    .batchSize(0)
-                    .status("FAILED")
-                    .build());
+            log.error("Calculation job {} for tracking {} failed (attempt {}): {}",
+                    job.id(), trackingId, job.attempts(), e.getMessage(), e);
+            if (job.attempts() < maxAttempts) {
+                calculationJobRepository.release(job.id(), nodeId, CalculationJobStatus.QUEUED, e.getMessage());
+                return;
+            }
+            fail(job, nodeId, e.getMessage());
         }
     }
+
+    private void fail(CalculationJob job, String nodeId, String reason) {
+        if (!calculationJobRepository.release(job.id(), nodeId, CalculationJobStatus.FAILED, reason)) return;
+
+        importBatchRepository.updateCalculationStatus(job.trackingId(), CalculationStatus.FAILED);
+
+        progressStore.emit(job.trackingId(), CalculationProgressEvent.builder()
+                .trackingId(job.trackingId())
+                .calculated(0)
+                .outOfScope(0)
+                .pending(0)
+                .total(0)
+                .batchCalculated(0)
+                .batchOutOfScope(0)
+                .batchSize(0)
+                .status("FAILED")
+                .build());
+    }
 }
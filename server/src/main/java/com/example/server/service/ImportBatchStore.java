@@ -1,43 +1,150 @@
 package com.example.server.service;
 
 import com.example.server.dto.order.ImportRowError;
+import com.example.server.enums.ImportErrorReason;
+import com.example.server.repository.ImportBatchRepository;
+import com.example.server.repository.native_query.ImportErrorNativeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+/**
+ * Import error reports, kept in the import_errors table.
+ *
+ * While a file is parsed its errors are collected in an {@link ErrorBuffer} that is written out
+ * with COPY whenever it grows past {@code buffer-bytes}, so the heap cost of an import is bounded
+ * no matter how many rows fail. Only the first {@code preview-size} errors stay in memory for the
+ * import response; full reports are paged or streamed back from the table and survive restarts.
+ */
+@Slf4j
 @Component
 public class ImportBatchStore {
 
-    private static final int MAX_BATCHES = 500;
+    private static final int STREAM_FETCH_SIZE = 1000;
 
-    private final Map<String, List<ImportRowError>> store = Collections.synchronizedMap(
-            new LinkedHashMap<>(256, 0.75f, false) {
-                @Override
-                protected boolean removeEldestEntry(Map.Entry<String, List<ImportRowError>> eldest) {
-                    return size() > MAX_BATCHES;
-                }
-            });
+    private final ImportErrorNativeRepository importErrorRepository;
+    private final ImportBatchRepository importBatchRepository;
+    private final long bufferBytes;
+    private final int previewSize;
+    private final int retentionDays;
 
-    public void save(String batchId, List<ImportRowError> errors) {
-        store.put(batchId, new ArrayList<>(errors));
+    public ImportBatchStore(ImportErrorNativeRepository importErrorRepository,
+                            ImportBatchRepository importBatchRepository,
+                            @Value("${app.import.errors.buffer-bytes:4194304}") long bufferBytes,
+                            @Value("${app.import.errors.preview-size:100}") int previewSize,
+                            @Value("${app.import.errors.retention-days:30}") int retentionDays) {
+        this.importErrorRepository = importErrorRepository;
+        this.importBatchRepository = importBatchRepository;
+        this.bufferBytes = bufferBytes;
+        this.previewSize = previewSize;
+        this.retentionDays = retentionDays;
     }
 
-    public void appendErrors(String batchId, List<ImportRowError> errors) {
-        store.computeIfPresent(batchId, (k, existing) -> {
-            existing.addAll(errors);
-            return existing;
-        });
+    public ErrorBuffer open(String batchId) {
+        return new ErrorBuffer(batchId);
     }
 
-    public List<ImportRowError> get(String batchId) {
-        return store.get(batchId);
+    public int appendOutOfScope(String batchId) {
+        return importErrorRepository.insertOutOfScope(batchId);
     }
 
     public boolean exists(String batchId) {
-        return store.containsKey(batchId);
+        return importBatchRepository.existsById(batchId);
+    }
+
+    public long count(String batchId) {
+        return importErrorRepository.count(batchId);
+    }
+
+    public List<ImportRowError> preview(String batchId) {
+        return importErrorRepository.findPage(batchId, 0, previewSize);
+    }
+
+    public List<ImportRowError> page(String batchId, int page, int pageSize) {
+        return importErrorRepository.findPage(batchId, (long) page * pageSize, pageSize);
+    }
+
+    /**
+     * Streams the errors in report order, skipping the first {@code offset} rows.
+     */
+    @Transactional(readOnly = true)
+    public void forEach(String batchId, long offset, Consumer<ImportRowError> consumer) {
+        importErrorRepository.forEach(batchId, offset, STREAM_FETCH_SIZE, consumer);
+    }
+
+    @Scheduled(cron = "${app.import.errors.purge-cron:0 45 3 * * *}", zone = "UTC")
+    public void purgeExpired() {
+        if (retentionDays <= 0) return;
+        int deleted = importErrorRepository.deleteOlderThan(Instant.now().minus(Duration.ofDays(retentionDays)));
+        if (deleted > 0) log.info("Purged {} import errors older than {} days.", deleted, retentionDays);
+    }
+
+    /**
+     * Collects the errors of one import run. Not thread-safe; owned by the importing thread.
+     */
+    public final class ErrorBuffer {
+        private final String batchId;
+        private final List<ImportRowError> pending = new ArrayList<>();
+        private final List<ImportRowError> preview = new ArrayList<>();
+        private final Map<ImportErrorReason, Integer> reasonCounts = new EnumMap<>(ImportErrorReason.class);
+        private long pendingBytes;
+        private int size;
+
+        private ErrorBuffer(String batchId) {
+            this.batchId = batchId;
+        }
+
+        public void add(ImportRowError error) {
+            size++;
+            reasonCounts.merge(error.getReason() != null ? error.getReason() : ImportErrorReason.UNKNOWN, 1, Integer::sum);
+            if (preview.size() < previewSize) preview.add(error);
+
+            pending.add(error);
+            pendingBytes += estimateBytes(error);
+            if (pendingBytes >= bufferBytes) flush();
+        }
+
+        public void addAll(List<ImportRowError> errors) {
+            errors.forEach(this::add);
+        }
+
+        public void flush() {
+            if (pending.isEmpty()) return;
+            importErrorRepository.copy(batchId, pending);
+            pending.clear();
+            pendingBytes = 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int count(ImportErrorReason... reasons) {
+            int total = 0;
+            for (ImportErrorReason reason : reasons) total += reasonCounts.getOrDefault(reason, 0);
+            return total;
+        }
+
+        public List<ImportRowError> preview() {
+            return List.copyOf(preview);
+        }
+
+        private static long estimateBytes(ImportRowError e) {
+            return 64 + 2L * (length(e.getField()) + length(e.getMessage()) + length(e.getRawRow()));
+        }
+
+        private static int length(String s) {
+            return s != null ? s.length() : 0;
+        }
     }
 }
@@ -0,0 +1,379 @@
+package com.example.server.service;
+
+import com.example.server.dto.order.JurisdictionMatch;
+import com.example.server.dto.order.SpecialRateEntry;
+import com.example.server.dto.order.JurisdictionCacheStats;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory counterpart of the PostGIS jurisdiction join in TaxCalculationNativeRepository.
+ *
+ * Geometries from geo_jurisdictions are loaded once (lazily, after the geo/rate seeders have run)
+ * into an STR-tree of prepared polygons. Resolution mirrors CALCULATE_BATCH_SQL exactly:
+ * only jurisdictions with an active tax_rates row take part, MAX per STATE/COUNTY/CITY rate,
+ * SUM over SPECIAL rates, and an empty match means the point is out of scope. Rate validity is
+ * checked against today's date in UTC on both sides.
+ *
+ * Containment uses the simplified geom_outer / geom_inner tiers first and touches the exact
+ * polygon only for points in the band between them, the same way the SQL join does.
+ *
+ * Point lookups are cached per DECIMAL(10,7) coordinate pair in a bounded Caffeine cache, so the
+ * calculation workers and request threads read it without a shared lock. The cache holds the
+ * matched jurisdictions with all their rates, so validity dates are still applied on every hit.
+ * Triggers on tax_rates and geo_jurisdictions bump reference_data_version; once the poller sees a
+ * new version the index is rebuilt and the cache is dropped together with it.
+ */
+@Slf4j
+@Component
+public class JurisdictionResolver {
+
+    private static final String LOAD_JURISDICTIONS_SQL = """
+            SELECT id, type, name,
+                   ST_AsBinary(geom)       AS wkb,
+                   ST_AsBinary(geom_inner) AS inner_wkb,
+                   ST_AsBinary(geom_outer) AS outer_wkb
+            FROM geo_jurisdictions
+            WHERE geom IS NOT NULL
+            """;
+
+    private static final String LOAD_RATES_SQL =
+            "SELECT jurisdiction_id, rate_type, rate, valid_to FROM tax_rates";
+
+    private static final String VERSION_SQL = "SELECT version FROM reference_data_version WHERE id = 1";
+
+    private static final int COORDINATE_SCALE = 7;
+    private static final double COORDINATE_FACTOR = 1e7;
+
+    private final JdbcTemplate jdbc;
+    private final int cacheMaxSize;
+
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+
+    private final LongAdder cacheHits      = new LongAdder();
+    private final LongAdder cacheMisses    = new LongAdder();
+    private final LongAdder cacheEvictions = new LongAdder();
+
+    private volatile Snapshot snapshot;
+
+    public JurisdictionResolver(JdbcTemplate jdbc,
+                                @Value("${app.tax.jurisdiction-cache.max-size:100000}") int cacheMaxSize) {
+        this.jdbc = jdbc;
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    public Optional<JurisdictionMatch> resolve(BigDecimal latitude, BigDecimal longitude) {
+        return resolve(new CoordinateKey(quantise(latitude), quantise(longitude)));
+    }
+
+    public Optional<JurisdictionMatch> resolve(double latitude, double longitude) {
+        return resolve(new CoordinateKey(quantise(latitude), quantise(longitude)));
+    }
+
+    /**
+     * Builds the index now if nothing has asked for it yet, so the first lookup does not pay for the load.
+     */
+    public void warmUp() {
+        snapshot();
+    }
+
+    public void reload() {
+        synchronized (this) {
+            snapshot = load();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.tax.jurisdiction-cache.poll-interval-ms:5000}")
+    public void reloadIfReferenceDataChanged() {
+        Snapshot current = snapshot;
+        if (current == null) return;
+
+        long version = currentVersion();
+        if (version != current.version()) {
+            log.info("Reference data changed (version {} -> {}), rebuilding jurisdiction index.",
+                    current.version(), version);
+            synchronized (this) {
+                if (snapshot == current) {
+                    snapshot = load();
+                }
+            }
+        }
+    }
+
+    public JurisdictionCacheStats cacheStats() {
+        Snapshot current = snapshot;
+        return new JurisdictionCacheStats(
+                cacheHits.sum(), cacheMisses.sum(), cacheEvictions.sum(),
+                current != null ? current.cache().size() : 0, cacheMaxSize,
+                current != null ? current.version() : null);
+    }
+
+    private Optional<JurisdictionMatch> resolve(CoordinateKey key) {
+        Snapshot current = snapshot();
+        List<Entry> hits = current.cache().get(key);
+        if (hits != null) {
+            cacheHits.increment();
+        } else {
+            cacheMisses.increment();
+            hits = locate(current.tree(), key);
+            current.cache().put(key, hits);
+        }
+        return aggregate(hits, LocalDate.now(ZoneOffset.UTC));
+    }
+
+    private List<Entry> locate(STRtree tree, CoordinateKey key) {
+        Point point = geometryFactory.createPoint(new Coordinate(
+                key.longitude() / COORDINATE_FACTOR, key.latitude() / COORDINATE_FACTOR));
+        List<Entry> hits = new ArrayList<>(4);
+        for (Object candidate : tree.query(point.getEnvelopeInternal())) {
+            Entry entry = (Entry) candidate;
+            if (entry.contains(point)) {
+                hits.add(entry);
+            }
+        }
+        return List.copyOf(hits);
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = load();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        long started = System.currentTimeMillis();
+        long version = currentVersion();
+
+        Map<Long, List<Rate>> ratesByJurisdiction = new HashMap<>();
+        jdbc.query(LOAD_RATES_SQL, rs -> {
+            ratesByJurisdiction
+                    .computeIfAbsent(rs.getLong("jurisdiction_id"), k -> new ArrayList<>())
+                    .add(new Rate(rs.getString("rate_type"), rs.getBigDecimal("rate"),
+                            rs.getObject("valid_to", LocalDate.class)));
+        });
+
+        WKBReader reader = new WKBReader(geometryFactory);
+        STRtree tree = new STRtree();
+        int[] loaded = {0};
+        int[] tiered = {0};
+        jdbc.query(LOAD_JURISDICTIONS_SQL, rs -> {
+            long id = rs.getLong("id");
+            Geometry geom;
+            Geometry inner;
+            Geometry outer;
+            try {
+                geom  = reader.read(rs.getBytes("wkb"));
+                inner = readOptional(reader, rs.getBytes("inner_wkb"));
+                outer = readOptional(reader, rs.getBytes("outer_wkb"));
+            } catch (ParseException e) {
+                throw new IllegalStateException("Invalid geometry for jurisdiction " + id, e);
+            }
+            tree.insert(geom.getEnvelopeInternal(), new Entry(
+                    id, rs.getString("type"), rs.getString("name"),
+                    PreparedGeometryFactory.prepare(geom), prepare(inner), prepare(outer),
+                    ratesByJurisdiction.getOrDefault(id, List.of())));
+            loaded[0]++;
+            if (inner != null && outer != null) tiered[0]++;
+        });
+        tree.build();
+
+        log.info("Jurisdiction index built: {} jurisdictions ({} with simplified tiers) in {} ms.",
+                loaded[0], tiered[0], System.currentTimeMillis() - started);
+        return new Snapshot(tree, newCache(), version);
+    }
+
+    private static Geometry readOptional(WKBReader reader, byte[] wkb) throws ParseException {
+        return wkb != null ? reader.read(wkb) : null;
+    }
+
+    private static PreparedGeometry prepare(Geometry geometry) {
+        return geometry != null ? PreparedGeometryFactory.prepare(geometry) : null;
+    }
+
+    private long currentVersion() {
+        Long version = jdbc.queryForObject(VERSION_SQL, Long.class);
+        return version != null ? version : 0L;
+    }
+
+    private Map<CoordinateKey, List<Entry>> newCache() {
+        Cache<CoordinateKey, List<Entry>> cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .executor(Runnable::run)
+                .removalListener((CoordinateKey key, List<Entry> hits, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) cacheEvictions.increment();
+                })
+                .build();
+        return cache.asMap();
+    }
+
+    private static long quantise(BigDecimal value) {
+        return value.setScale(COORDINATE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static long quantise(double value) {
+        return Math.round(value * COORDINATE_FACTOR);
+    }
+
+    private static Optional<JurisdictionMatch> aggregate(List<Entry> hits, LocalDate today) {
+        BigDecimal stateRate  = null;
+        BigDecimal countyRate = null;
+        BigDecimal cityRate   = null;
+        BigDecimal specialSum = null;
+        String stateName  = null;
+        String countyName = null;
+        String cityName   = null;
+        List<SpecialRateEntry> specialRates = null;
+        List<String> specialNames = null;
+        Long stateId  = null;
+        Long countyId = null;
+        Long cityId   = null;
+        Set<Long> specialIds = null;
+        boolean matched = false;
+
+        for (Entry entry : hits) {
+            for (Rate rate : entry.rates()) {
+                if (rate.validTo() != null && rate.validTo().isBefore(today)) continue;
+                matched = true;
+
+                switch (rate.type()) {
+                    case "STATE"   -> stateRate  = max(stateRate,  rate.rate());
+                    case "COUNTY"  -> countyRate = max(countyRate, rate.rate());
+                    case "CITY"    -> cityRate   = max(cityRate,   rate.rate());
+                    case "SPECIAL" -> {
+                        specialSum = specialSum == null ? rate.rate() : specialSum.add(rate.rate());
+                        if (specialRates == null) specialRates = new ArrayList<>();
+                        specialRates.add(new SpecialRateEntry(entry.name(), rate.rate()));
+                    }
+                    default -> { }
+                }
+
+                switch (entry.type()) {
+                    case "STATE"   -> {
+                        if (outranks(entry, stateName, stateId)) {
+                            stateName = entry.name();
+                            stateId   = entry.id();
+                        }
+                    }
+                    case "COUNTY"  -> {
+                        if (outranks(entry, countyName, countyId)) {
+                            countyName = entry.name();
+                            countyId   = entry.id();
+                        }
+                    }
+                    case "CITY"    -> {
+                        if (outranks(entry, cityName, cityId)) {
+                            cityName = entry.name();
+                            cityId   = entry.id();
+                        }
+                    }
+                    case "SPECIAL" -> {
+                        if (specialNames == null) specialNames = new ArrayList<>();
+                        specialNames.add(entry.name());
+                        if (specialIds == null) specialIds = new TreeSet<>();
+                        specialIds.add(entry.id());
+                    }
+                    default -> { }
+                }
+            }
+        }
+
+        if (!matched) return Optional.empty();
+
+        Map<String, Object> jurisdictions = new LinkedHashMap<>();
+        jurisdictions.put("state", stateName);
+        jurisdictions.put("county", countyName);
+        jurisdictions.put("city", cityName);
+        jurisdictions.put("special", specialNames);
+
+        return Optional.of(new JurisdictionMatch(
+                orZero(stateRate), orZero(countyRate), orZero(cityRate), orZero(specialSum),
+                specialRates, jurisdictions, stateId, countyId, cityId,
+                specialIds != null ? specialIds.toArray(new Long[0]) : null));
+    }
+
+    /**
+     * Same pick as the SQL engine: the greatest name, ties broken by the greatest id, so the stored
+     * id always belongs to the stored name. Names compare by code point, which is the order of
+     * COLLATE "C" over UTF-8 used in the SQL.
+     */
+    private static boolean outranks(Entry entry, String currentName, Long currentId) {
+        if (currentName == null) return true;
+        int cmp = compareCodePoints(entry.name(), currentName);
+        return cmp > 0 || (cmp == 0 && entry.id() > currentId);
+    }
+
+    private static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) return Integer.compare(ca, cb);
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    private static <T extends Comparable<T>> T max(T current, T candidate) {
+        return current == null || candidate.compareTo(current) > 0 ? candidate : current;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private record Rate(String type, BigDecimal rate, LocalDate validTo) {}
+
+    private record Entry(long id, String type, String name,
+                         PreparedGeometry geometry, PreparedGeometry inner, PreparedGeometry outer,
+                         List<Rate> rates) {
+
+        boolean contains(Point point) {
+            if (outer != null && !outer.contains(point)) return false;
+            if (inner != null && inner.contains(point)) return true;
+            return geometry.contains(point);
+        }
+    }
+
+    private record CoordinateKey(long latitude, long longitude) {}
+
+    private record Snapshot(STRtree tree, Map<CoordinateKey, List<Entry>> cache, long version) {}
+}
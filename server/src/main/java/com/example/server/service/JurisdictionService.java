@@ -0,0 +1,9 @@
+package com.example.server.service;
+
+import com.example.server.dto.jurisdiction.JurisdictionDto;
+
+import java.util.List;
+
+public interface JurisdictionService {
+    List<JurisdictionDto> search(String query, String type, int limit);
+}
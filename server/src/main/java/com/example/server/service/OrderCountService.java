@@ -0,0 +1,107 @@
+package com.example.server.service;
+
+import com.example.server.dto.order.OrderCount;
+import com.example.server.dto.order.OrderFilterParams;
+import com.example.server.entity.Order;
+import com.example.server.repository.OrderRepository;
+import com.example.server.repository.native_query.OrderNativeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Total counts for order listings.
+ *
+ * Unfiltered listings use the planner's row estimate once the table is past the exact-count
+ * threshold. Everything else, including an unfiltered listing whose estimate is missing or stale,
+ * is counted with a cap of the threshold, so no count reads more than that many rows; a capped
+ * result is reported as the threshold, approximate ("at least"), and kept for a short TTL per
+ * filter set so paging through the same result does not recount. Filter sets are normalised
+ * first, so the same filter written differently shares one entry.
+ */
+@Component
+public class OrderCountService {
+
+    private static final int MAX_CACHED_FILTERS = 1000;
+
+    private final OrderRepository orderRepository;
+    private final OrderNativeRepository orderNativeRepository;
+    private final long exactThreshold;
+    private final long cacheTtlMillis;
+
+    private final Map<OrderFilterParams, CachedCount> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<OrderFilterParams, CachedCount> eldest) {
+                    return size() > MAX_CACHED_FILTERS;
+                }
+            });
+
+    public OrderCountService(OrderRepository orderRepository,
+                             OrderNativeRepository orderNativeRepository,
+                             @Value("${app.orders.count.exact-threshold:100000}") long exactThreshold,
+                             @Value("${app.orders.count.cache-ttl-ms:30000}") long cacheTtlMillis) {
+        this.orderRepository = orderRepository;
+        this.orderNativeRepository = orderNativeRepository;
+        this.exactThreshold = exactThreshold;
+        this.cacheTtlMillis = cacheTtlMillis;
+    }
+
+    public OrderCount count(OrderFilterParams filters, Specification<Order> spec) {
+        OrderFilterParams key = normalise(filters);
+
+        if (isUnfiltered(key)) {
+            long estimate = orderNativeRepository.estimateRowCount();
+            if (estimate >= exactThreshold) {
+                return new OrderCount(estimate, true);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        CachedCount cached = cache.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return new OrderCount(cached.total(), true);
+        }
+
+        long total = orderRepository.countUpTo(spec, exactThreshold + 1);
+        if (total <= exactThreshold) {
+            return new OrderCount(total, false);
+        }
+        cache.put(key, new CachedCount(exactThreshold, now + cacheTtlMillis));
+        return new OrderCount(exactThreshold, true);
+    }
+
+    private static boolean isUnfiltered(OrderFilterParams f) {
+        return f.equals(new OrderFilterParams());
+    }
+
+    /** BigDecimals compared by value rather than scale, id lists as sorted sets. */
+    private static OrderFilterParams normalise(OrderFilterParams f) {
+        return f.toBuilder()
+                .taxAmountMin(normalise(f.getTaxAmountMin()))
+                .taxAmountMax(normalise(f.getTaxAmountMax()))
+                .compositeTaxRateMin(normalise(f.getCompositeTaxRateMin()))
+                .compositeTaxRateMax(normalise(f.getCompositeTaxRateMax()))
+                .stateIds(normalise(f.getStateIds()))
+                .countyIds(normalise(f.getCountyIds()))
+                .cityIds(normalise(f.getCityIds()))
+                .specialIds(normalise(f.getSpecialIds()))
+                .build();
+    }
+
+    private static BigDecimal normalise(BigDecimal value) {
+        return value != null ? value.stripTrailingZeros() : null;
+    }
+
+    private static List<Long> normalise(List<Long> ids) {
+        return ids != null ? ids.stream().distinct().sorted().toList() : null;
+    }
+
+    private record CachedCount(long total, long expiresAt) {}
+}
@@ -0,0 +1,85 @@
+package com.example.server.service;
+
+import com.example.server.repository.native_query.OrderPartitionNativeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Keeps the monthly partitions of orders ahead of the data.
+ *
+ * The scheduled run creates the current month plus {@code months-ahead}, gives months parked in
+ * orders_default their own partition, and drops months older than {@code retention-months}
+ * (0 keeps everything). Writers never create partitions: attaching one locks orders_default
+ * exclusively, which would queue a request behind any running scan of orders and everything else
+ * behind the request. Rows for a month without a partition simply wait in orders_default.
+ * A month whose locks are not granted within {@code lock-timeout-ms} is retried on the next run.
+ */
+@Slf4j
+@Component
+public class OrderPartitionService {
+
+    private final OrderPartitionNativeRepository partitionRepository;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final long lockTimeoutMs;
+
+    public OrderPartitionService(OrderPartitionNativeRepository partitionRepository,
+                                 @Value("${app.orders.partitions.months-ahead:3}") int monthsAhead,
+                                 @Value("${app.orders.partitions.retention-months:0}") int retentionMonths,
+                                 @Value("${app.orders.partitions.lock-timeout-ms:5000}") long lockTimeoutMs) {
+        this.partitionRepository = partitionRepository;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.lockTimeoutMs = lockTimeoutMs;
+    }
+
+    @Scheduled(cron = "${app.orders.partitions.maintenance-cron:0 15 3 * * *}", zone = "UTC")
+    public void maintain() {
+        Set<YearMonth> existing = new TreeSet<>(partitionRepository.findMonthlyPartitions());
+
+        Set<YearMonth> wanted = new TreeSet<>(partitionRepository.findDefaultPartitionMonths());
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= monthsAhead; i++) {
+            wanted.add(current.plusMonths(i));
+        }
+        wanted.removeAll(existing);
+        wanted.forEach(this::create);
+
+        if (retentionMonths <= 0) return;
+
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        for (YearMonth month : existing) {
+            if (!month.isBefore(oldestKept)) break;
+            drop(month);
+        }
+    }
+
+    private void drop(YearMonth month) {
+        try {
+            partitionRepository.dropPartition(month, lockTimeoutMs);
+            log.info("Dropped orders partition for {} (retention {} months).", month, retentionMonths);
+        } catch (PessimisticLockingFailureException e) {
+            log.warn("Orders partition for {} not dropped, lock not granted within {} ms; retrying on the next run.",
+                    month, lockTimeoutMs);
+        }
+    }
+
+    private void create(YearMonth month) {
+        try {
+            if (partitionRepository.createPartition(month, lockTimeoutMs)) {
+                log.info("Created orders partition for {}.", month);
+            }
+        } catch (PessimisticLockingFailureException e) {
+            log.warn("Orders partition for {} not created, lock not granted within {} ms; rows stay in orders_default until the next run.",
+                    month, lockTimeoutMs);
+        }
+    }
+}
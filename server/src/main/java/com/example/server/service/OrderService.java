@@ -2,18 +2,27 @@ package com.example.server.service;
 
 import com.example.server.dto.common.PageResponse;
 import com.example.server.dto.order.ImportResultResponse;
+import com.example.server.dto.order.OrderFilterParams;
 import com.example.server.dto.order.OrderFilterRequest;
 import com.example.server.dto.order.OrderRequest;
 import com.example.server.dto.order.OrderResponse;
+import com.example.server.enums.ExportFormat;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 public interface OrderService {
 
     OrderResponse createOrder(OrderRequest request, Long userId);
 
     PageResponse<OrderResponse> getOrders(OrderFilterRequest request, Pageable pageable);
 
+    OrderFilterParams buildFilters(OrderFilterRequest request);
+
+    void exportOrders(OrderFilterParams filters, ExportFormat format, OutputStream out) throws IOException;
+
     ImportResultResponse importFromCsv(MultipartFile file, Long userId,
                                        String duplicateHandling, String outOfScopeHandling);
 
@@ -0,0 +1,10 @@
+package com.example.server.service;
+
+import com.example.server.dto.report.TaxTotalRow;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ReportService {
+    List<TaxTotalRow> getTaxTotals(String period, LocalDate from, LocalDate to, String type, Long jurisdictionId);
+}
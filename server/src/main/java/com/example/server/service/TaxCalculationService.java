@@ -2,10 +2,24 @@ package com.example.server.service;
 
 import com.example.server.dto.order.CalculationBatchProgress;
 
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 
 public interface TaxCalculationService {
     int calculatePendingOrders();
     int calculatePendingOrders(Consumer<CalculationBatchProgress> onBatch);
+
+    /**
+     * Calculates the pending orders of one import. Workers stop claiming new batches once
+     * {@code cancelled} returns true, e.g. when the node has lost the job's lease.
+     */
+    int calculateImportBatch(String importBatchId, Consumer<CalculationBatchProgress> onBatch, BooleanSupplier cancelled);
+
     void calculateSingleOrder(Long orderId);
+
+    /**
+     * Drains pending batches of an import owned by another node, without reporting progress
+     * or finishing it. Returns the number of batches processed here.
+     */
+    int assistImportBatch(String importBatchId);
 }
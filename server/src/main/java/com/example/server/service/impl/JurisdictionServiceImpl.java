@@ -0,0 +1,42 @@
+package com.example.server.service.impl;
+
+import com.example.server.dto.jurisdiction.JurisdictionDto;
+import com.example.server.repository.native_query.GeoJurisdictionNativeRepository;
+import com.example.server.service.JurisdictionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+public class JurisdictionServiceImpl implements JurisdictionService {
+
+    private static final Set<String> TYPES = Set.of("STATE", "COUNTY", "CITY", "SPECIAL");
+    private static final int MAX_LIMIT = 50;
+
+    private final GeoJurisdictionNativeRepository geoJurisdictionNativeRepository;
+
+    @Override
+    public List<JurisdictionDto> search(String query, String type, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "q must not be blank");
+        }
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        String normalisedType = null;
+        if (type != null && !type.isBlank()) {
+            normalisedType = type.strip().toUpperCase();
+            if (!TYPES.contains(normalisedType)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid type: " + type);
+            }
+        }
+
+        return geoJurisdictionNativeRepository.search(query.strip().toLowerCase(), normalisedType, limit);
+    }
+}
@@ -5,13 +5,18 @@ import com.example.server.dto.order.ImportResultResponse;
 import com.example.server.dto.order.ImportRowError;
 import com.example.server.dto.order.ImportSummary;
 import com.example.server.dto.order.ImportableRow;
+import com.example.server.dto.order.JurisdictionMatch;
+import com.example.server.dto.order.OrderCount;
+import com.example.server.dto.order.OrderCursor;
 import com.example.server.dto.order.OrderFilterParams;
 import com.example.server.dto.order.OrderFilterRequest;
 import com.example.server.dto.order.OrderRequest;
 import com.example.server.dto.order.OrderResponse;
 import com.example.server.entity.ImportBatch;
 import com.example.server.entity.Order;
+import com.example.server.enums.CalculationStatus;
 import com.example.server.enums.DuplicateHandling;
+import com.example.server.enums.ExportFormat;
 import com.example.server.enums.ImportErrorReason;
 import com.example.server.enums.ImportStatus;
 import com.example.server.enums.OrderStatus;
@@ -20,20 +25,25 @@ import com.example.server.mapper.OrderMapper;
 import com.example.server.repository.ImportBatchRepository;
 import com.example.server.repository.OrderRepository;
 import com.example.server.repository.OrderSpecification;
+import com.example.server.repository.native_query.GeoJurisdictionNativeRepository;
 import com.example.server.repository.native_query.OrderNativeRepository;
+import com.example.server.service.CalculationJobScheduler;
 import com.example.server.service.CalculationProgressStore;
-import com.example.server.service.CalculationTriggerService;
 import com.example.server.service.ImportBatchStore;
+import com.example.server.service.OrderCountService;
+import com.example.server.service.JurisdictionResolver;
 import com.example.server.service.OrderService;
 import com.example.server.service.TaxCalculationService;
 import com.example.server.util.OrderCsvParser;
-import com.example.server.util.OrderCsvParser.ParsedImportResult;
+import com.example.server.util.OrderCsvParser.ImportChunk;
+import com.example.server.util.OrderExportWriter;
 import com.example.server.util.OrderParamUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
@@ -43,34 +53,51 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
+    private static final int IMPORT_CHUNK_SIZE = 5000;
+
     private final OrderRepository orderRepository;
     private final OrderMapper orderMapper;
     private final OrderCsvParser csvParser;
     private final OrderNativeRepository orderNativeRepository;
     private final TaxCalculationService taxCalculationService;
-    private final CalculationTriggerService calculationTriggerService;
+    private final CalculationJobScheduler calculationJobScheduler;
     private final ImportBatchStore importBatchStore;
     private final CalculationProgressStore calculationProgressStore;
     private final ImportBatchRepository importBatchRepository;
     private final EntityManager entityManager;
+    private final JurisdictionResolver jurisdictionResolver;
+    private final OrderCountService orderCountService;
+    private final GeoJurisdictionNativeRepository geoJurisdictionNativeRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.orders.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    @Value("${app.tax.single-order.fast-path:true}")
+    private boolean fastSingleOrder;
 
     @Override
     @Transactional
     public OrderResponse createOrder(OrderRequest request, Long userId) {
-        Order saved = orderRepository.saveAndFlush(Order.builder()
+        Order order = Order.builder()
                 .externalId(request.getExternalId())
                 .latitude(request.getLatitude())
                 .longitude(request.getLongitude())
@@ -79,19 +106,126 @@ public class OrderServiceImpl implements OrderService {
                 .status(OrderStatus.ADDED)
                 .csvImported(false)
                 .createdBy(userId)
-                .build());
+                .build();
 
+        if (fastSingleOrder) {
+            return orderMapper.toResponse(orderNativeRepository.insertCalculated(applyTaxes(order)));
+        }
+
+        Order saved = orderRepository.saveAndFlush(order);
         taxCalculationService.calculateSingleOrder(saved.getId());
 
         entityManager.refresh(saved);
         return orderMapper.toResponse(saved);
     }
 
+    private Order applyTaxes(Order order) {
+        Optional<JurisdictionMatch> resolved = jurisdictionResolver.resolve(order.getLatitude(), order.getLongitude());
+        if (resolved.isEmpty()) {
+            order.setStatus(OrderStatus.OUT_OF_SCOPE);
+            return order;
+        }
+
+        JurisdictionMatch match = resolved.get();
+        BigDecimal composite = match.compositeRate();
+        order.setStatus(OrderStatus.CALCULATED);
+        order.setStateRate(match.stateRate());
+        order.setCountyRate(match.countyRate());
+        order.setCityRate(match.cityRate());
+        order.setSpecialRates(match.specialRates());
+        order.setJurisdictions(match.jurisdictions());
+        order.setStateId(match.stateId());
+        order.setCountyId(match.countyId());
+        order.setCityId(match.cityId());
+        order.setSpecialIds(match.specialIds());
+        order.setCompositeTaxRate(composite);
+        order.setTaxAmount(order.getSubtotal().multiply(composite));
+        order.setTotalAmount(order.getSubtotal().multiply(BigDecimal.ONE.add(composite)));
+        return order;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public PageResponse<OrderResponse> getOrders(OrderFilterRequest request, Pageable pageable) {
         OrderParamUtils.validatePageable(pageable);
 
+        OrderFilterParams filters = buildFilters(request);
+        Specification<Order> spec = OrderSpecification.from(filters);
+
+        if (OrderParamUtils.isKeysetMode(request.getPagination(), request.getCursor())) {
+            return getOrdersKeyset(spec, pageable, OrderParamUtils.decodeCursor(request.getCursor()),
+                    !Boolean.FALSE.equals(request.getIncludeJson()));
+        }
+
+        Sort sort = pageable.getSort();
+        if (sort.getOrderFor("id") == null) {
+            sort = sort.and(Sort.by(Sort.Direction.DESC, "id"));
+        }
+        int pageSize = pageable.getPageSize();
+        long offset  = pageable.getOffset();
+        boolean includeJson = !Boolean.FALSE.equals(request.getIncludeJson());
+        List<Tuple> rows = orderRepository.findRows(spec, sort, offset, pageSize + 1, includeJson);
+
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) rows = rows.subList(0, pageSize);
+
+        OrderCount count;
+        if (!hasNext && (offset == 0 || !rows.isEmpty())) {
+            count = new OrderCount(offset + rows.size(), false);
+        } else {
+            count = orderCountService.count(filters, spec);
+            long seen = offset + rows.size() + (hasNext ? 1 : 0);
+            if (count.total() < seen) count = new OrderCount(seen, true);
+        }
+
+        List<String> sortStrings = pageable.getSort().stream()
+                .map(o -> o.getProperty() + "," + o.getDirection().name().toLowerCase())
+                .toList();
+
+        return new PageResponse<>(
+                rows.stream().map(row -> orderMapper.toResponse(row, includeJson)).toList(),
+                pageable.getPageNumber(),
+                pageSize,
+                count.total(),
+                (int) ((count.total() + pageSize - 1) / pageSize),
+                count.approximate(),
+                hasNext,
+                pageable.getPageNumber() > 0,
+                sortStrings,
+                null
+        );
+    }
+
+    private List<Long> findJurisdictionIds(String type, String nameFragment) {
+        return nameFragment != null
+                ? geoJurisdictionNativeRepository.findIdsByNameContaining(type, nameFragment)
+                : null;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportOrders(OrderFilterParams filters, ExportFormat format, OutputStream out) throws IOException {
+        Specification<Order> spec = OrderSpecification.from(filters);
+        OrderExportWriter writer = OrderExportWriter.of(format, out, objectMapper);
+
+        long started = System.currentTimeMillis();
+        long rows = 0;
+        try (Stream<Tuple> stream = orderRepository.streamRows(
+                spec, Sort.by(Sort.Direction.ASC, "id"), exportFetchSize, true)) {
+            Iterator<Tuple> it = stream.iterator();
+            while (it.hasNext()) {
+                writer.write(orderMapper.toResponse(it.next(), true));
+                rows++;
+            }
+        }
+        writer.finish();
+
+        long elapsed = Math.max(1, System.currentTimeMillis() - started);
+        log.info("Exported {} orders as {} in {} ms ({} rows/s).", rows, format, elapsed, rows * 1000 / elapsed);
+    }
+
+    @Override
+    public OrderFilterParams buildFilters(OrderFilterRequest request) {
         Long tsFrom = OrderParamUtils.parseTimestamp(request.getTimestampFrom(), "timestampFrom");
         Long tsTo   = OrderParamUtils.parseTimestamp(request.getTimestampTo(),   "timestampTo");
 
@@ -101,7 +235,7 @@ public class OrderServiceImpl implements OrderService {
         OrderParamUtils.validateRange(request.getCompositeTaxRateMin(), request.getCompositeTaxRateMax(),
                                      "compositeTaxRateMin", "compositeTaxRateMax");
 
-        OrderFilterParams filters = OrderFilterParams.builder()
+        return OrderFilterParams.builder()
                 .searchId(OrderParamUtils.parseSearchId(request.getId()))
                 .csvImported(request.getCsvImported())
                 .status(OrderParamUtils.parseStatus(request.getStatus()))
@@ -111,38 +245,102 @@ public class OrderServiceImpl implements OrderService {
                 .taxAmountMax(request.getTaxAmountMax())
                 .compositeTaxRateMin(request.getCompositeTaxRateMin())
                 .compositeTaxRateMax(request.getCompositeTaxRateMax())
-                .jurState(request.getJurState())
-                .jurCounty(request.getJurCounty())
-                .jurCity(request.getJurCity())
-                .jurSpecial(request.getJurSpecial())
+                .stateIds(intersect(request.getStateId(), findJurisdictionIds("STATE", request.getJurState())))
+                .countyIds(intersect(request.getCountyId(), findJurisdictionIds("COUNTY", request.getJurCounty())))
+                .cityIds(intersect(request.getCityId(), findJurisdictionIds("CITY", request.getJurCity())))
+                .specialIds(intersect(request.getSpecialId(), request.getJurSpecial() != null
+                        ? geoJurisdictionNativeRepository.findIdsByName("SPECIAL", request.getJurSpecial())
+                        : null))
                 .hasSpecial(request.getHasSpecial())
                 .build();
+    }
 
-        Sort sort = pageable.getSort();
-        if (sort.getOrderFor("id") == null) {
-            sort = sort.and(Sort.by(Sort.Direction.DESC, "id"));
+    /**
+     * Combines ids passed explicitly (from the jurisdiction autocomplete) with ids resolved from a
+     * name filter; either side may be absent. The result is sorted so equal filters compare equal.
+     */
+    private static List<Long> intersect(List<Long> explicitIds, List<Long> resolvedIds) {
+        if (explicitIds == null || explicitIds.isEmpty()) return resolvedIds;
+        List<Long> ids = explicitIds.stream().distinct().sorted().toList();
+        return resolvedIds == null ? ids : ids.stream().filter(resolvedIds::contains).toList();
+    }
+
+    /**
+     * Seek pagination: fetches pageSize + 1 rows after the cursor position and never counts.
+     * Supports one sort property from {@link OrderParamUtils#KEYSET_SORT_PROPERTIES} plus the id tiebreaker.
+     */
+    private PageResponse<OrderResponse> getOrdersKeyset(Specification<Order> spec, Pageable pageable,
+                                                        OrderCursor cursor, boolean includeJson) {
+        List<Sort.Order> sortOrders = pageable.getSort().stream().filter(o -> !o.getProperty().equals("id")).toList();
+        if (sortOrders.size() > 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Keyset pagination supports a single sort property besides id");
         }
-        Pageable stablePageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
 
-        Specification<Order> spec = OrderSpecification.from(filters);
-        Page<Order> page = orderRepository.findAll(spec, stablePageable);
+        Sort.Order primary = sortOrders.isEmpty()
+                ? pageable.getSort().getOrderFor("id")
+                : sortOrders.get(0);
+        if (primary == null) primary = Sort.Order.desc("id");
+        if (!OrderParamUtils.KEYSET_SORT_PROPERTIES.contains(primary.getProperty())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Keyset pagination cannot sort by " + primary.getProperty()
+                    + ". Use one of " + OrderParamUtils.KEYSET_SORT_PROPERTIES);
+        }
 
-        List<String> sortStrings = pageable.getSort().stream()
+        String property = primary.getProperty();
+        Sort.Order idOrder = pageable.getSort().getOrderFor("id");
+        Sort.Direction idDirection = idOrder != null ? idOrder.getDirection() : primary.getDirection();
+
+        Sort sort = "id".equals(property)
+                ? Sort.by(idDirection, "id")
+                : Sort.by(primary.getDirection(), property).and(Sort.by(idDirection, "id"));
+
+        Specification<Order> seek = spec;
+        if (cursor != null) {
+            if (!property.equals(cursor.property())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Cursor was issued for sort by " + cursor.property());
+            }
+            seek = spec.and(OrderSpecification.seekAfter(property, primary.getDirection(), idDirection,
+                    OrderParamUtils.parseCursorValue(property, cursor.value()), cursor.id()));
+        }
+
+        int pageSize = pageable.getPageSize();
+        List<Tuple> rows = orderRepository.findRows(seek, sort, 0, pageSize + 1, includeJson);
+
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) rows = rows.subList(0, pageSize);
+
+        String nextCursor = null;
+        if (hasNext) {
+            Tuple last = rows.get(rows.size() - 1);
+            nextCursor = OrderParamUtils.encodeCursor(property, last.get(property), last.get("id", Long.class));
+        }
+
+        List<String> sortStrings = sort.stream()
                 .map(o -> o.getProperty() + "," + o.getDirection().name().toLowerCase())
                 .toList();
 
         return new PageResponse<>(
-                page.getContent().stream().map(orderMapper::toResponse).toList(),
-                page.getNumber(),
-                page.getSize(),
-                page.getTotalElements(),
-                page.getTotalPages(),
-                page.hasNext(),
-                page.hasPrevious(),
-                sortStrings
+                rows.stream().map(row -> orderMapper.toResponse(row, includeJson)).toList(),
+                0,
+                pageSize,
+                null,
+                null,
+                false,
+                hasNext,
+                cursor != null,
+                sortStrings,
+                nextCursor
         );
     }
 
+    /**
+     * Chunks commit as they are parsed. The import_batches row exists before the first one, and the
+     * calculation job is queued as soon as a chunk brings pending rows, so calculation runs while the
+     * rest of the file is still being read. If reading stops on an error, the rows committed so far
+     * are still handed to calculation and the import stays findable by its tracking id.
+     */
     @Override
     public ImportResultResponse importFromCsv(MultipartFile file, Long userId,
                                               String duplicateHandling, String outOfScopeHandling) {
@@ -150,33 +348,86 @@ public class OrderServiceImpl implements OrderService {
         DuplicateHandling dupPolicy   = DuplicateHandling.from(duplicateHandling);
         OutOfScopeHandling oosPolicy  = OutOfScopeHandling.from(outOfScopeHandling);
 
-        ParsedImportResult parsed;
+        importBatchRepository.save(ImportBatch.builder()
+                .trackingId(batchId)
+                .calculationStatus(CalculationStatus.IMPORTING)
+                .outOfScopeHandling(oosPolicy)
+                .build());
+
+        ImportBatchStore.ErrorBuffer allErrors = importBatchStore.open(batchId);
+        ImportCounters counters = new ImportCounters();
+
+        int totalRows;
         try {
-            parsed = csvParser.parseForImport(file);
+            totalRows = csvParser.parseForImport(file, IMPORT_CHUNK_SIZE,
+                    chunk -> importChunk(chunk, batchId, userId, dupPolicy, oosPolicy, allErrors, counters));
         } catch (ResponseStatusException e) {
-            return failedImport(batchId, e.getReason() != null ? e.getReason() : e.getMessage());
+            String reason = e.getReason() != null ? e.getReason() : e.getMessage();
+            if (counters.imported() == 0) {
+                return failedImport(batchId, reason);
+            }
+            ImportResultResponse partial = finishIngest(batchId, counters.rowsRead, allErrors, counters, oosPolicy);
+            partial.setStatus(ImportStatus.FAILED);
+            partial.setMessage(reason + ". " + partial.getMessage());
+            return partial;
+        } catch (RuntimeException e) {
+            log.error("CSV import {} stopped after {} rows: {}", batchId, counters.rowsRead, e.getMessage());
+            finishIngest(batchId, counters.rowsRead, allErrors, counters, oosPolicy);
+            throw e;
         }
 
-        if (parsed.totalRows() == 0) {
+        if (totalRows == 0) {
             return failedImport(batchId, "CSV contained no data rows");
         }
 
-        List<ImportRowError> allErrors = new ArrayList<>(parsed.errors());
+        log.info("CSV import {}: {} rows read, {} inserted, {} overwritten, {} skipped, {} errors.",
+                batchId, totalRows, counters.inserted, counters.overwritten, counters.skippedDuplicates, allErrors.size());
 
-        Map<Long, ImportableRow> externalIdMap = parsed.validRows().stream()
-                .filter(r -> r.getExternalId() != null)
-                .collect(Collectors.toMap(ImportableRow::getExternalId, r -> r, (a, b) -> a));
+        return finishIngest(batchId, totalRows, allErrors, counters, oosPolicy);
+    }
 
-        List<Long> externalIds = externalIdMap.keySet().stream().toList();
-        Set<Long> existingIds  = orderNativeRepository.getExistingExternalIds(externalIds);
+    private ImportResultResponse finishIngest(String batchId, int totalRows, ImportBatchStore.ErrorBuffer allErrors,
+                                              ImportCounters counters, OutOfScopeHandling oosPolicy) {
+        allErrors.flush();
+
+        int importedRows = counters.imported();
+        ImportResultResponse response = buildResponse(batchId, totalRows, importedRows, allErrors, counters.skippedDuplicates);
+        ImportSummary summary = response.getSummary();
+
+        importBatchRepository.finishIngest(batchId, summary.getTotalRows(), summary.getParsedRows(),
+                summary.getImportedRows(), summary.getSkippedDuplicateRows(),
+                importedRows > 0 ? CalculationStatus.RUNNING : CalculationStatus.COMPLETED);
+
+        if (importedRows > 0 && !counters.calculationQueued) {
+            calculationJobScheduler.submit(batchId, oosPolicy);
+        }
+        return response;
+    }
+
+    private void importChunk(ImportChunk chunk, String batchId, Long userId, DuplicateHandling dupPolicy,
+                             OutOfScopeHandling oosPolicy, ImportBatchStore.ErrorBuffer allErrors,
+                             ImportCounters counters) {
+        counters.rowsRead += chunk.validRows().size() + chunk.errors().size();
+        allErrors.addAll(chunk.errors());
+        if (chunk.validRows().isEmpty()) {
+            importBatchRepository.updateIngestProgress(batchId, counters.imported(), counters.skippedDuplicates);
+            return;
+        }
+
+        List<Long> externalIds = chunk.validRows().stream()
+                .map(ImportableRow::getExternalId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Set<Long> existingIds = orderNativeRepository.getExistingExternalIds(externalIds);
+        Set<Long> seenInChunk = new HashSet<>();
 
         List<ImportableRow> toInsert    = new ArrayList<>();
         List<ImportableRow> toOverwrite = new ArrayList<>();
-        int skippedDuplicates = 0;
 
-        for (ImportableRow row : parsed.validRows()) {
+        for (ImportableRow row : chunk.validRows()) {
             Long extId = row.getExternalId();
-            boolean isDuplicate = extId != null && existingIds.contains(extId);
+            boolean isDuplicate = extId != null && (existingIds.contains(extId) || !seenInChunk.add(extId));
 
             if (!isDuplicate) {
                 toInsert.add(row);
@@ -184,7 +435,7 @@ public class OrderServiceImpl implements OrderService {
             }
 
             switch (dupPolicy) {
-                case SKIP -> skippedDuplicates++;
+                case SKIP -> counters.skippedDuplicates++;
                 case OVERWRITE -> toOverwrite.add(row);
                 case FAIL -> allErrors.add(ImportRowError.builder()
                         .rowNumber(row.getRowNumber())
@@ -197,31 +448,30 @@ public class OrderServiceImpl implements OrderService {
             }
         }
 
-        int insertedCount    = toInsert.isEmpty()    ? 0 : orderNativeRepository.batchInsertRows(toInsert, userId);
-        int overwrittenCount = toOverwrite.isEmpty() ? 0 : orderNativeRepository.batchOverwriteRows(toOverwrite);
-        int importedRows     = insertedCount + overwrittenCount;
-
-        importBatchStore.save(batchId, allErrors);
+        if (!toInsert.isEmpty())    counters.inserted    += orderNativeRepository.insertImportRows(toInsert, userId, batchId);
+        if (!toOverwrite.isEmpty()) counters.overwritten += orderNativeRepository.batchOverwriteRows(toOverwrite, batchId);
 
-        ImportResultResponse response = buildResponse(batchId, parsed.totalRows(), importedRows, allErrors, skippedDuplicates);
+        importBatchRepository.updateIngestProgress(batchId, counters.imported(), counters.skippedDuplicates);
+        if (!counters.calculationQueued && counters.imported() > 0) {
+            calculationJobScheduler.submit(batchId, oosPolicy);
+            counters.calculationQueued = true;
+        }
+    }
 
-        importBatchRepository.save(ImportBatch.builder()
-                .trackingId(batchId)
-                .totalRows(response.getSummary().getTotalRows())
-                .parsedRows(response.getSummary().getParsedRows())
-                .importedRows(response.getSummary().getImportedRows())
-                .skippedDuplicateRows(response.getSummary().getSkippedDuplicateRows())
-                .build());
+    private static final class ImportCounters {
+        int rowsRead;
+        int inserted;
+        int overwritten;
+        int skippedDuplicates;
+        boolean calculationQueued;
 
-        if (importedRows > 0) {
-            calculationTriggerService.calculateAndTrack(batchId, importedRows, externalIds, externalIdMap, oosPolicy);
+        int imported() {
+            return inserted + overwritten;
         }
-
-        return response;
     }
 
     private ImportResultResponse buildResponse(String batchId, int totalRows, int importedRows,
-                                               List<ImportRowError> errors, int skipped) {
+                                               ImportBatchStore.ErrorBuffer errors, int skipped) {
         int failedRows = errors.size();
         ImportStatus status = importedRows > 0
                 ? ImportStatus.PROCESSING
@@ -233,11 +483,9 @@ public class OrderServiceImpl implements OrderService {
 
         ImportSummary summary = ImportSummary.builder()
                 .totalRows(totalRows)
-                .parsedRows(totalRows - (int) errors.stream()
-                        .filter(e -> e.getReason() == ImportErrorReason.MISSING_COLUMN
-                                  || e.getReason() == ImportErrorReason.BAD_FORMAT
-                                  || e.getReason() == ImportErrorReason.INVALID_TIMESTAMP)
-                        .count())
+                .parsedRows(totalRows - errors.count(ImportErrorReason.MISSING_COLUMN,
+                                                     ImportErrorReason.BAD_FORMAT,
+                                                     ImportErrorReason.INVALID_TIMESTAMP))
                 .importedRows(importedRows)
                 .failedRows(failedRows)
                 .skippedDuplicateRows(skipped)
@@ -248,12 +496,15 @@ public class OrderServiceImpl implements OrderService {
                 .status(status)
                 .message(message)
                 .summary(summary)
-                .errorsPreview(errors)
+                .errorsPreview(errors.preview())
                 .build();
     }
 
     private ImportResultResponse failedImport(String batchId, String reason) {
-        importBatchStore.save(batchId, List.of());
+        importBatchRepository.save(ImportBatch.builder()
+                .trackingId(batchId)
+                .calculationStatus(CalculationStatus.FAILED)
+                .build());
         return ImportResultResponse.builder()
                 .trackingId(batchId)
                 .status(ImportStatus.FAILED)
@@ -268,28 +519,31 @@ public class OrderServiceImpl implements OrderService {
         return calculationProgressStore.getResult(trackingId)
                 .filter(e -> "COMPLETED".equals(e.getStatus()) || "FAILED".equals(e.getStatus()))
                 .map(event -> {
-                    List<ImportRowError> errors = importBatchStore.exists(trackingId)
-                            ? importBatchStore.get(trackingId)
-                            : List.of();
-                    ImportStatus status = errors.isEmpty() ? ImportStatus.COMPLETED : ImportStatus.COMPLETED_WITH_ERRORS;
+                    long errorCount = importBatchStore.count(trackingId);
+                    boolean failed = "FAILED".equals(event.getStatus());
+                    ImportStatus status = failed ? ImportStatus.FAILED
+                            : (errorCount == 0 ? ImportStatus.COMPLETED : ImportStatus.COMPLETED_WITH_ERRORS);
 
                     ImportBatch batch = importBatchRepository.findById(trackingId).orElse(null);
 
                     return ImportResultResponse.builder()
                             .trackingId(trackingId)
                             .status(status)
-                            .message(String.format("Calculation complete. %d calculated, %d out of scope.",
-                                    event.getCalculated(), event.getOutOfScope()))
+                            .message(failed
+                                    ? String.format("Import failed. %d calculated, %d out of scope.",
+                                            event.getCalculated(), event.getOutOfScope())
+                                    : String.format("Calculation complete. %d calculated, %d out of scope.",
+                                            event.getCalculated(), event.getOutOfScope()))
                             .summary(ImportSummary.builder()
                                     .totalRows(batch != null ? batch.getTotalRows() : 0)
                                     .parsedRows(batch != null ? batch.getParsedRows() : 0)
                                     .importedRows(batch != null ? batch.getImportedRows() : 0)
                                     .calculatedRows(event.getCalculated())
                                     .outOfScopeRows(event.getOutOfScope())
-                                    .failedRows(errors.size())
+                                    .failedRows((int) errorCount)
                                     .skippedDuplicateRows(batch != null ? batch.getSkippedDuplicateRows() : 0)
                                     .build())
-                            .errorsPreview(errors)
+                            .errorsPreview(errorCount == 0 ? List.of() : importBatchStore.preview(trackingId))
                             .build();
                 })
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
@@ -0,0 +1,44 @@
+package com.example.server.service.impl;
+
+import com.example.server.dto.report.TaxTotalRow;
+import com.example.server.repository.native_query.TaxReportNativeRepository;
+import com.example.server.service.ReportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+public class ReportServiceImpl implements ReportService {
+
+    private static final Set<String> TYPES = Set.of("STATE", "COUNTY", "CITY", "SPECIAL");
+
+    private final TaxReportNativeRepository taxReportNativeRepository;
+
+    @Override
+    public List<TaxTotalRow> getTaxTotals(String period, LocalDate from, LocalDate to, String type, Long jurisdictionId) {
+        boolean monthly = switch (period == null ? "" : period.strip().toLowerCase()) {
+            case "day" -> false;
+            case "month" -> true;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "period must be day or month");
+        };
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+
+        String normalisedType = null;
+        if (type != null && !type.isBlank()) {
+            normalisedType = type.strip().toUpperCase();
+            if (!TYPES.contains(normalisedType)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid type: " + type);
+            }
+        }
+
+        return taxReportNativeRepository.findTotals(monthly, from, to, normalisedType, jurisdictionId);
+    }
+}
@@ -1,31 +1,260 @@
 package com.example.server.service.impl;
 
 import com.example.server.dto.order.CalculationBatchProgress;
+import com.example.server.dto.order.CalculationBatchResult;
+import com.example.server.entity.ImportBatch;
+import com.example.server.enums.CalculationStatus;
+import com.example.server.repository.ImportBatchRepository;
 import com.example.server.repository.TaxCalculationNativeRepository;
 import com.example.server.service.TaxCalculationService;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class TaxCalculationServiceImpl implements TaxCalculationService {
 
+    private static final long IN_FLIGHT_POLL_MS = 200;
+    private static final BooleanSupplier NEVER_CANCELLED = () -> false;
+
     private final TaxCalculationNativeRepository taxCalculationNativeRepository;
+    private final ImportBatchRepository importBatchRepository;
+    private final Executor workerExecutor;
+    private final int workers;
+    private final long ingestStalledAfterMs;
+
+    public TaxCalculationServiceImpl(TaxCalculationNativeRepository taxCalculationNativeRepository,
+                                     ImportBatchRepository importBatchRepository,
+                                     @Qualifier("calculationWorkerExecutor") Executor workerExecutor,
+                                     @Value("${app.tax.calculation.workers:4}") int workers,
+                                     @Value("${app.import.stalled-after-ms:600000}") long ingestStalledAfterMs) {
+        this.taxCalculationNativeRepository = taxCalculationNativeRepository;
+        this.importBatchRepository = importBatchRepository;
+        this.workerExecutor = workerExecutor;
+        this.workers = workers;
+        this.ingestStalledAfterMs = ingestStalledAfterMs;
+    }
 
     @Override
     public int calculatePendingOrders() {
-        return taxCalculationNativeRepository.calculatePendingOrders();
+        return calculatePendingOrders(null);
     }
 
     @Override
     public int calculatePendingOrders(Consumer<CalculationBatchProgress> onBatch) {
-        return taxCalculationNativeRepository.calculatePendingOrders(onBatch);
+        return calculate(null, onBatch, NEVER_CANCELLED);
+    }
+
+    @Override
+    public int calculateImportBatch(String importBatchId, Consumer<CalculationBatchProgress> onBatch,
+                                    BooleanSupplier cancelled) {
+        return calculate(importBatchId, onBatch, cancelled);
     }
 
     @Override
     public void calculateSingleOrder(Long orderId) {
         taxCalculationNativeRepository.calculateSingleOrder(orderId);
     }
+
+    @Override
+    public int assistImportBatch(String importBatchId) {
+        ProgressRollup rollup = new ProgressRollup(taxCalculationNativeRepository.countPending(importBatchId), null, null);
+        AtomicBoolean failed = new AtomicBoolean();
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            futures[i] = CompletableFuture.runAsync(
+                    () -> drain(importBatchId, rollup, failed, NEVER_CANCELLED), workerExecutor);
+        }
+        CompletableFuture.allOf(futures).exceptionally(e -> null).join();
+
+        return rollup.batchNum;
+    }
+
+    /**
+     * Committed batches are never revisited: an order leaves status ADDED in the same transaction
+     * that advances the import checkpoint, so a restarted run simply picks up the remaining ADDED
+     * rows and continues the counters from import_batches.
+     */
+    private int calculate(String importBatchId, Consumer<CalculationBatchProgress> onBatch, BooleanSupplier cancelled) {
+        int totalPending = taxCalculationNativeRepository.countPending(importBatchId);
+
+        ImportBatch checkpoint = importBatchId != null
+                ? importBatchRepository.findById(importBatchId).orElse(null)
+                : null;
+        ProgressRollup rollup = new ProgressRollup(totalPending, checkpoint, onBatch);
+
+        if (rollup.resumed) {
+            log.info("Resuming tax calculation for import {} after id {}: {} calculated, {} out of scope, {} remaining.",
+                    importBatchId, checkpoint.getLastProcessedId(),
+                    rollup.totalCalculated, rollup.totalOutOfScope, totalPending);
+            rollup.announceResume();
+        }
+
+        if (totalPending == 0 && !isIngesting(importBatchId)) {
+            log.info("Tax calculation finished: nothing to process.");
+            return rollup.totalCalculated;
+        }
+
+        log.info("Tax calculation started{}: {} pending orders on {} workers (batch size={}).",
+                importBatchId != null ? " for import " + importBatchId : "",
+                totalPending, workers, TaxCalculationNativeRepository.BATCH_SIZE);
+
+        runWorkers(importBatchId, rollup, cancelled);
+        if (importBatchId != null) {
+            awaitRemaining(importBatchId, rollup, cancelled);
+        }
+
+        if (cancelled.getAsBoolean()) {
+            log.warn("Tax calculation{} cancelled after {} batches.",
+                    importBatchId != null ? " for import " + importBatchId : "", rollup.batchNum);
+            return rollup.totalCalculated;
+        }
+
+        log.info("Tax calculation finished: {} calculated, {} out of scope (total processed: {}).",
+                rollup.totalCalculated, rollup.totalOutOfScope, rollup.totalCalculated + rollup.totalOutOfScope);
+
+        return rollup.totalCalculated;
+    }
+
+    /**
+     * Each worker keeps claiming batches until none are left. Claims are row locks taken with
+     * SKIP LOCKED, so workers here and on other nodes never pick up the same orders. A cancelled
+     * run finishes the batch in hand and stops; the rest is left to whoever holds the job now.
+     */
+    private void drain(String importBatchId, ProgressRollup rollup, AtomicBoolean failed, BooleanSupplier cancelled) {
+        try {
+            while (!failed.get() && !cancelled.getAsBoolean()) {
+                CalculationBatchResult batch = taxCalculationNativeRepository.calculateNextBatch(importBatchId);
+                if (batch.batchSize() == 0) break;
+
+                rollup.record(batch);
+            }
+        } catch (RuntimeException e) {
+            failed.set(true);
+            log.error("Tax calculation worker failed: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    private void runWorkers(String importBatchId, ProgressRollup rollup, BooleanSupplier cancelled) {
+        AtomicBoolean failed = new AtomicBoolean();
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            futures[i] = CompletableFuture.runAsync(
+                    () -> drain(importBatchId, rollup, failed, cancelled), workerExecutor);
+        }
+
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    /**
+     * Rows claimed by other nodes helping with the import are skipped by our claims, but stay ADDED
+     * until their batches commit, and rows of an upload still in progress keep arriving chunk by chunk.
+     * The import is only done once its upload has finished and no rows are pending; rows that show up
+     * meanwhile (new chunks, or released by a helper's rollback) are drained by all workers again.
+     */
+    private void awaitRemaining(String importBatchId, ProgressRollup rollup, BooleanSupplier cancelled) {
+        while (!cancelled.getAsBoolean()) {
+            int pending = taxCalculationNativeRepository.countPending(importBatchId);
+            if (pending == 0 && !isIngesting(importBatchId)) return;
+
+            if (pending > 0) {
+                rollup.expect(pending);
+                runWorkers(importBatchId, rollup, cancelled);
+            }
+            try {
+                Thread.sleep(IN_FLIGHT_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for pending rows of " + importBatchId, e);
+            }
+        }
+    }
+
+    /**
+     * Whether the upload of an import is still writing chunks. An upload that has not reported a
+     * chunk for {@code stalled-after-ms} is taken as gone, so its committed rows still get finished.
+     */
+    private boolean isIngesting(String importBatchId) {
+        if (importBatchId == null) return false;
+        return importBatchRepository.findById(importBatchId)
+                .filter(b -> b.getCalculationStatus() == CalculationStatus.IMPORTING)
+                .map(b -> b.getUpdatedAt() != null
+                        && b.getUpdatedAt().isAfter(Instant.now().minusMillis(ingestStalledAfterMs)))
+                .orElse(false);
+    }
+
+    /**
+     * Folds batch results from all workers into one monotonic progress stream.
+     * When started from a checkpoint the counters continue from the persisted totals; for an import
+     * they follow the totals returned by each batch, which include work done by other nodes.
+     */
+    private static final class ProgressRollup {
+        private int totalPending;
+        private final boolean resumed;
+        private final Consumer<CalculationBatchProgress> onBatch;
+        private int totalCalculated;
+        private int totalOutOfScope;
+        private int batchNum;
+
+        ProgressRollup(int remaining, ImportBatch checkpoint, Consumer<CalculationBatchProgress> onBatch) {
+            this.totalCalculated = checkpoint != null ? checkpoint.getCalculatedRows() : 0;
+            this.totalOutOfScope = checkpoint != null ? checkpoint.getOutOfScopeRows() : 0;
+            this.totalPending = totalCalculated + totalOutOfScope + remaining;
+            this.resumed = totalCalculated + totalOutOfScope > 0;
+            this.onBatch = onBatch;
+        }
+
+        /** Grows the expected total while an import's rows are still arriving. */
+        synchronized void expect(int remaining) {
+            totalPending = Math.max(totalPending, totalCalculated + totalOutOfScope + remaining);
+        }
+
+        synchronized void announceResume() {
+            if (onBatch != null) {
+                onBatch.accept(new CalculationBatchProgress(
+                        0, 0, 0, totalCalculated, totalOutOfScope,
+                        totalCalculated + totalOutOfScope, totalPending, true));
+            }
+        }
+
+        synchronized void record(CalculationBatchResult batch) {
+            batchNum++;
+            if (batch.importCalculated() >= 0) {
+                totalCalculated = Math.max(totalCalculated, batch.importCalculated());
+                totalOutOfScope = Math.max(totalOutOfScope, batch.importOutOfScope());
+            } else {
+                totalCalculated += batch.calculated();
+                totalOutOfScope += batch.outOfScope();
+            }
+
+            log.info("Batch #{} ({} rows): {} calculated, {} out of scope — total so far: {}/{} done.",
+                    batchNum, batch.batchSize(), batch.calculated(), batch.outOfScope(),
+                    totalCalculated + totalOutOfScope, totalPending);
+
+            if (onBatch != null) {
+                onBatch.accept(new CalculationBatchProgress(
+                        batch.calculated(), batch.outOfScope(), batch.batchSize(),
+                        totalCalculated, totalOutOfScope,
+                        totalCalculated + totalOutOfScope, totalPending, resumed));
+            }
+        }
+    }
 }
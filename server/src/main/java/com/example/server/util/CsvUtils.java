@@ -0,0 +1,46 @@
+package com.example.server.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+public final class CsvUtils {
+
+    private CsvUtils() {}
+
+    /**
+     * RFC 4180 cell: quoted only when it contains a delimiter, quote or line break.
+     */
+    public static String cell(Object value) {
+        if (value == null) return "";
+        String s = value.toString();
+        if (!needsQuoting(s)) return s;
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Same output as {@link #cell(Object)}, written without building the quoted string.
+     */
+    public static void writeCell(Writer writer, Object value) throws IOException {
+        if (value == null) return;
+        String s = value.toString();
+        if (!needsQuoting(s)) {
+            writer.write(s);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') writer.write('"');
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private static boolean needsQuoting(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.server.util;
+
+import com.example.server.dto.order.ImportRowError;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Streams an import error report as CSV. Cells are written straight into one fixed output buffer,
+ * so memory stays constant however many rows go through.
+ */
+public final class ImportErrorCsvWriter implements Consumer<ImportRowError> {
+
+    public static final String HEADER = "rowNumber,externalId,reason,field,message,rawRow\n";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer writer;
+
+    public ImportErrorCsvWriter(OutputStream out, boolean withHeader) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (withHeader) writer.write(HEADER);
+    }
+
+    @Override
+    public void accept(ImportRowError e) {
+        try {
+            CsvUtils.writeCell(writer, e.getRowNumber());
+            writer.write(',');
+            CsvUtils.writeCell(writer, e.getExternalId());
+            writer.write(',');
+            CsvUtils.writeCell(writer, e.getReason());
+            writer.write(',');
+            CsvUtils.writeCell(writer, e.getField());
+            writer.write(',');
+            CsvUtils.writeCell(writer, e.getMessage());
+            writer.write(',');
+            CsvUtils.writeCell(writer, e.getRawRow());
+            writer.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public void finish() throws IOException {
+        writer.flush();
+    }
+}
@@ -6,11 +6,13 @@ import com.example.server.dto.order.OrderCsvRow;
 import com.example.server.enums.ImportErrorReason;
 import com.opencsv.CSVReader;
 import com.opencsv.bean.CsvToBeanBuilder;
+import com.opencsv.exceptions.CsvValidationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
@@ -25,6 +27,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Component
 public class OrderCsvParser {
@@ -58,14 +61,22 @@ public class OrderCsvParser {
         }
     }
 
-    public record ParsedImportResult(List<ImportableRow> validRows, List<ImportRowError> errors, int totalRows) {}
-
-    public ParsedImportResult parseForImport(MultipartFile file) {
+    public record ImportChunk(List<ImportableRow> validRows, List<ImportRowError> errors) {}
+
+    /**
+     * Streams the file in chunks of {@code chunkSize} rows. Each chunk is handed to {@code onChunk}
+     * and then dropped, so only one chunk is ever held in memory.
+     * A malformed line stops reading and is reported as a BAD_FORMAT row error; chunks before it
+     * have already been handed over.
+     *
+     * @return total number of data rows read
+     */
+    public int parseForImport(MultipartFile file, int chunkSize, Consumer<ImportChunk> onChunk) {
         if (file.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV file is empty");
         }
 
-        List<ImportableRow> validRows = new ArrayList<>();
+        List<ImportableRow> validRows = new ArrayList<>(chunkSize);
         List<ImportRowError> errors = new ArrayList<>();
         int totalRows = 0;
 
@@ -78,86 +89,103 @@ public class OrderCsvParser {
             }
 
             Map<String, Integer> idx = buildColumnIndex(header);
-            String[] fields;
             int rowNum = 1;
 
-            while ((fields = reader.readNext()) != null) {
+            while (true) {
+                String[] fields;
+                try {
+                    fields = reader.readNext();
+                } catch (IOException | CsvValidationException e) {
+                    rowNum++;
+                    totalRows++;
+                    errors.add(rowError(rowNum, null, null, ImportErrorReason.BAD_FORMAT, null,
+                            "Failed to read CSV: " + e.getMessage()));
+                    break;
+                }
+                if (fields == null) break;
+
                 rowNum++;
                 totalRows++;
-                String rawLine = String.join(",", fields);
 
-                ImportRowError err = validateRow(fields, idx, rowNum, rawLine);
+                ImportRowError err = validateRow(fields, idx, rowNum);
                 if (err != null) {
                     errors.add(err);
-                    continue;
+                } else {
+                    String latStr  = field(fields, idx, "latitude");
+                    String lonStr  = field(fields, idx, "longitude");
+                    String tsStr   = field(fields, idx, "timestamp");
+                    String subStr  = field(fields, idx, "subtotal");
+                    String idStr   = field(fields, idx, "id");
+
+                    validRows.add(new ImportableRow(
+                            rowNum,
+                            fields,
+                            parseExternalId(idStr),
+                            new BigDecimal(latStr),
+                            new BigDecimal(lonStr),
+                            parseTimestamp(tsStr),
+                            new BigDecimal(subStr)
+                    ));
                 }
 
-                String latStr  = field(fields, idx, "latitude");
-                String lonStr  = field(fields, idx, "longitude");
-                String tsStr   = field(fields, idx, "timestamp");
-                String subStr  = field(fields, idx, "subtotal");
-                String idStr   = field(fields, idx, "id");
-
-                validRows.add(new ImportableRow(
-                        rowNum,
-                        rawLine,
-                        parseExternalId(idStr),
-                        new BigDecimal(latStr),
-                        new BigDecimal(lonStr),
-                        parseTimestamp(tsStr),
-                        new BigDecimal(subStr)
-                ));
+                if (validRows.size() + errors.size() >= chunkSize) {
+                    onChunk.accept(new ImportChunk(validRows, errors));
+                    validRows = new ArrayList<>(chunkSize);
+                    errors = new ArrayList<>();
+                }
             }
 
-        } catch (ResponseStatusException e) {
-            throw e;
-        } catch (Exception e) {
+            if (!validRows.isEmpty() || !errors.isEmpty()) {
+                onChunk.accept(new ImportChunk(validRows, errors));
+            }
+
+        } catch (IOException | CsvValidationException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Failed to read CSV: " + e.getMessage());
         }
 
-        return new ParsedImportResult(validRows, errors, totalRows);
+        return totalRows;
     }
 
-    private ImportRowError validateRow(String[] fields, Map<String, Integer> idx, int rowNum, String rawLine) {
+    private ImportRowError validateRow(String[] fields, Map<String, Integer> idx, int rowNum) {
         String latStr  = field(fields, idx, "latitude");
         String lonStr  = field(fields, idx, "longitude");
         String tsStr   = field(fields, idx, "timestamp");
         String subStr  = field(fields, idx, "subtotal");
 
-        if (latStr == null) return rowError(rowNum, null, rawLine, ImportErrorReason.MISSING_COLUMN, "latitude", "latitude is required");
-        if (lonStr == null) return rowError(rowNum, null, rawLine, ImportErrorReason.MISSING_COLUMN, "longitude", "longitude is required");
-        if (tsStr  == null) return rowError(rowNum, null, rawLine, ImportErrorReason.MISSING_COLUMN, "timestamp", "timestamp is required");
-        if (subStr == null) return rowError(rowNum, null, rawLine, ImportErrorReason.MISSING_COLUMN, "subtotal",  "subtotal is required");
+        if (latStr == null) return rowError(rowNum, null, fields, ImportErrorReason.MISSING_COLUMN, "latitude", "latitude is required");
+        if (lonStr == null) return rowError(rowNum, null, fields, ImportErrorReason.MISSING_COLUMN, "longitude", "longitude is required");
+        if (tsStr  == null) return rowError(rowNum, null, fields, ImportErrorReason.MISSING_COLUMN, "timestamp", "timestamp is required");
+        if (subStr == null) return rowError(rowNum, null, fields, ImportErrorReason.MISSING_COLUMN, "subtotal",  "subtotal is required");
 
         BigDecimal lat, lon, sub;
         try { lat = new BigDecimal(latStr); } catch (NumberFormatException e) {
-            return rowError(rowNum, null, rawLine, ImportErrorReason.BAD_FORMAT, "latitude", "Cannot parse latitude: " + latStr);
+            return rowError(rowNum, null, fields, ImportErrorReason.BAD_FORMAT, "latitude", "Cannot parse latitude: " + latStr);
         }
         try { lon = new BigDecimal(lonStr); } catch (NumberFormatException e) {
-            return rowError(rowNum, null, rawLine, ImportErrorReason.BAD_FORMAT, "longitude", "Cannot parse longitude: " + lonStr);
+            return rowError(rowNum, null, fields, ImportErrorReason.BAD_FORMAT, "longitude", "Cannot parse longitude: " + lonStr);
         }
         try { sub = new BigDecimal(subStr); } catch (NumberFormatException e) {
-            return rowError(rowNum, null, rawLine, ImportErrorReason.BAD_FORMAT, "subtotal", "Cannot parse subtotal: " + subStr);
+            return rowError(rowNum, null, fields, ImportErrorReason.BAD_FORMAT, "subtotal", "Cannot parse subtotal: " + subStr);
         }
 
         try { parseTimestamp(tsStr); } catch (Exception e) {
-            return rowError(rowNum, null, rawLine, ImportErrorReason.INVALID_TIMESTAMP, "timestamp", "Cannot parse timestamp: " + tsStr);
+            return rowError(rowNum, null, fields, ImportErrorReason.INVALID_TIMESTAMP, "timestamp", "Cannot parse timestamp: " + tsStr);
         }
 
         if (lat.compareTo(LAT_MIN) < 0 || lat.compareTo(LAT_MAX) > 0) {
-            return rowError(rowNum, null, rawLine, ImportErrorReason.INVALID_COORDINATES, "latitude", "Latitude out of range [-90, 90]: " + lat);
+            return rowError(rowNum, null, fields, ImportErrorReason.INVALID_COORDINATES, "latitude", "Latitude out of range [-90, 90]: " + lat);
         }
         if (lon.compareTo(LON_MIN) < 0 || lon.compareTo(LON_MAX) > 0) {
-            return rowError(rowNum, null, rawLine, ImportErrorReason.INVALID_COORDINATES, "longitude", "Longitude out of range [-180, 180]: " + lon);
+            return rowError(rowNum, null, fields, ImportErrorReason.INVALID_COORDINATES, "longitude", "Longitude out of range [-180, 180]: " + lon);
         }
         if (sub.compareTo(BigDecimal.ZERO) <= 0) {
-            return rowError(rowNum, null, rawLine, ImportErrorReason.NEGATIVE_SUBTOTAL, "subtotal", "subtotal must be > 0, got: " + sub);
+            return rowError(rowNum, null, fields, ImportErrorReason.NEGATIVE_SUBTOTAL, "subtotal", "subtotal must be > 0, got: " + sub);
         }
 
         return null;
     }
 
-    private static ImportRowError rowError(int rowNum, Long externalId, String rawLine,
+    private static ImportRowError rowError(int rowNum, Long externalId, String[] fields,
                                            ImportErrorReason reason, String field, String message) {
         return ImportRowError.builder()
                 .rowNumber(rowNum)
@@ -165,7 +193,7 @@ public class OrderCsvParser {
                 .reason(reason)
                 .field(field)
                 .message(message)
-                .rawRow(rawLine)
+                .rawRow(fields != null ? String.join(",", fields) : null)
                 .build();
     }
 
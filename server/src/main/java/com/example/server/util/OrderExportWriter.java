@@ -0,0 +1,121 @@
+package com.example.server.util;
+
+import com.example.server.dto.order.OrderResponse;
+import com.example.server.enums.ExportFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes exported orders one row at a time; nothing is buffered beyond the output buffer.
+ */
+public abstract class OrderExportWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String CSV_HEADER =
+            "id,latitude,longitude,timestamp,subtotal,status,csvImported," +
+            "compositeTaxRate,taxAmount,totalAmount,stateRate,countyRate,cityRate," +
+            "state,county,city,special,createdAt\n";
+
+    public static OrderExportWriter of(ExportFormat format, OutputStream out, ObjectMapper objectMapper)
+            throws IOException {
+        return format == ExportFormat.NDJSON ? new Ndjson(out, objectMapper) : new Csv(out);
+    }
+
+    public static String contentType(ExportFormat format) {
+        return format == ExportFormat.NDJSON ? "application/x-ndjson" : "text/csv; charset=UTF-8";
+    }
+
+    public static String fileExtension(ExportFormat format) {
+        return format == ExportFormat.NDJSON ? "ndjson" : "csv";
+    }
+
+    public abstract void write(OrderResponse order) throws IOException;
+
+    public abstract void finish() throws IOException;
+
+    private static final class Csv extends OrderExportWriter {
+        private final Writer writer;
+
+        Csv(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            writer.write(CSV_HEADER);
+        }
+
+        @Override
+        public void write(OrderResponse o) throws IOException {
+            Map<String, Object> j = o.getJurisdictions();
+            writer.append(CsvUtils.cell(o.getId())).append(',')
+                  .append(CsvUtils.cell(o.getLatitude())).append(',')
+                  .append(CsvUtils.cell(o.getLongitude())).append(',')
+                  .append(CsvUtils.cell(o.getTimestamp())).append(',')
+                  .append(CsvUtils.cell(o.getSubtotal())).append(',')
+                  .append(CsvUtils.cell(o.getStatus())).append(',')
+                  .append(CsvUtils.cell(o.isCsvImported())).append(',')
+                  .append(CsvUtils.cell(o.getCompositeTaxRate())).append(',')
+                  .append(CsvUtils.cell(o.getTaxAmount())).append(',')
+                  .append(CsvUtils.cell(o.getTotalAmount())).append(',')
+                  .append(CsvUtils.cell(o.getStateRate())).append(',')
+                  .append(CsvUtils.cell(o.getCountyRate())).append(',')
+                  .append(CsvUtils.cell(o.getCityRate())).append(',')
+                  .append(CsvUtils.cell(j != null ? j.get("state") : null)).append(',')
+                  .append(CsvUtils.cell(j != null ? j.get("county") : null)).append(',')
+                  .append(CsvUtils.cell(j != null ? j.get("city") : null)).append(',')
+                  .append(CsvUtils.cell(j != null ? joinNames(j.get("special")) : null)).append(',')
+                  .append(CsvUtils.cell(o.getCreatedAt())).append('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private static String joinNames(Object names) {
+            if (!(names instanceof Collection<?> c) || c.isEmpty()) return null;
+            StringBuilder sb = new StringBuilder();
+            for (Object name : c) {
+                if (!sb.isEmpty()) sb.append(';');
+                sb.append(name);
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final class Ndjson extends OrderExportWriter {
+        private final OutputStream out;
+        private final SequenceWriter writer;
+        private boolean empty = true;
+
+        Ndjson(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+            this.writer = objectMapper.writer()
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .withRootValueSeparator("\n")
+                    .writeValues(this.out);
+        }
+
+        @Override
+        public void write(OrderResponse order) throws IOException {
+            writer.write(order);
+            empty = false;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.close();
+            if (!empty) out.write('\n');
+            out.flush();
+        }
+    }
+}
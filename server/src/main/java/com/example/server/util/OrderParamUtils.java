@@ -1,19 +1,29 @@
 package com.example.server.util;
 
+import com.example.server.dto.order.OrderCursor;
 import com.example.server.enums.OrderStatus;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Set;
 
 public final class OrderParamUtils {
 
     public static final int MAX_PAGE_SIZE = 200;
 
+    /**
+     * Non-nullable columns that keyset pagination can seek on, each backed by a (column, id) index
+     * so a page is an index range scan rather than a sort of the filtered set.
+     */
+    public static final Set<String> KEYSET_SORT_PROPERTIES = Set.of("id", "createdAt", "timestamp");
+
     private OrderParamUtils() {}
 
     public static void validatePageable(Pageable pageable) {
@@ -70,4 +80,41 @@ public final class OrderParamUtils {
                     minName + " must not be greater than " + maxName);
         }
     }
+
+    public static boolean isKeysetMode(String pagination, String cursor) {
+        if (cursor != null && !cursor.isBlank()) return true;
+        if (pagination == null || pagination.isBlank() || "offset".equalsIgnoreCase(pagination.strip())) return false;
+        if ("keyset".equalsIgnoreCase(pagination.strip())) return true;
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Invalid pagination: " + pagination + ". Use offset or keyset");
+    }
+
+    public static String encodeCursor(String property, Object value, long id) {
+        String raw = property + "|" + value + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.strip()), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) throw new IllegalArgumentException();
+            return new OrderCursor(parts[0], parts[1], Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    public static Comparable<?> parseCursorValue(String property, String value) {
+        try {
+            return switch (property) {
+                case "id", "timestamp" -> Long.parseLong(value);
+                case "createdAt"       -> Instant.parse(value);
+                default -> throw new IllegalArgumentException();
+            };
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
 }
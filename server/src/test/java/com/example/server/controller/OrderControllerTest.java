@@ -0,0 +1,49 @@
+package com.example.server.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderControllerTest {
+
+    @Test
+    void parseRowsRangeReturnsTheFirstRequestedRow() {
+        assertThat(OrderController.parseRowsRange("rows=0-")).isZero();
+        assertThat(OrderController.parseRowsRange("rows=250-")).isEqualTo(250L);
+        assertThat(OrderController.parseRowsRange("rows=10-19")).isEqualTo(10L);
+        assertThat(OrderController.parseRowsRange("rows= 7 - ")).isEqualTo(7L);
+        assertThat(OrderController.parseRowsRange("rows=42")).isEqualTo(42L);
+    }
+
+    @Test
+    void parseRowsRangeIgnoresOtherUnits() {
+        assertThat(OrderController.parseRowsRange("bytes=0-1023")).isNull();
+    }
+
+    @Test
+    void parseRowsRangeRejectsMalformedRowRanges() {
+        for (String range : new String[]{"rows=", "rows=-5", "rows=abc-", "rows=-1-"}) {
+            assertThatThrownBy(() -> OrderController.parseRowsRange(range))
+                    .as(range)
+                    .isInstanceOf(ResponseStatusException.class)
+                    .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                    .isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        }
+    }
+
+    @Test
+    void acceptsGzipHonoursCodingsAndZeroQuality() {
+        assertThat(OrderController.acceptsGzip(null)).isFalse();
+        assertThat(OrderController.acceptsGzip("gzip")).isTrue();
+        assertThat(OrderController.acceptsGzip("GZIP")).isTrue();
+        assertThat(OrderController.acceptsGzip("deflate, gzip;q=0.5, br")).isTrue();
+        assertThat(OrderController.acceptsGzip("gzip;q=1.0")).isTrue();
+        assertThat(OrderController.acceptsGzip("br, deflate")).isFalse();
+        assertThat(OrderController.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(OrderController.acceptsGzip("gzip; q=0.000")).isFalse();
+        assertThat(OrderController.acceptsGzip("x-gzip")).isFalse();
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.server.repository;
+
+import com.example.server.entity.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link OrderSpecification#seekAfter} against an in-memory H2 table, so the tie-break on id
+ * is checked as SQL rather than as a predicate tree.
+ */
+class OrderSpecificationTest {
+
+    private static final String URL = "jdbc:h2:mem:seek;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    // {id, subtotal}; ids 2, 3, 4 and 6 share a subtotal, so seeks and page boundaries land on ties
+    private static final long[][] ROWS = {{1, 10}, {2, 20}, {3, 20}, {4, 20}, {5, 30}, {6, 20}, {7, 30}, {8, 5}};
+
+    private static SessionFactory sessionFactory;
+
+    @BeforeAll
+    static void createTable() throws SQLException {
+        try (Connection c = DriverManager.getConnection(URL, "sa", "");
+             Statement st = c.createStatement()) {
+            st.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, subtotal DECIMAL(14,4) NOT NULL)");
+            for (long[] row : ROWS) {
+                st.execute("INSERT INTO orders (id, subtotal) VALUES (" + row[0] + ", " + row[1] + ")");
+            }
+        }
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Order.class)
+                .setProperty("hibernate.connection.url", URL)
+                .setProperty("hibernate.connection.username", "sa")
+                .buildSessionFactory();
+    }
+
+    @AfterAll
+    static void close() {
+        sessionFactory.close();
+    }
+
+    @Test
+    void ascendingSeekContinuesWithinTiesThenMovesPastThem() {
+        assertThat(ids(seekAfterSubtotal(Sort.Direction.ASC, Sort.Direction.ASC, 3),
+                Sort.Direction.ASC, Sort.Direction.ASC))
+                .containsExactly(4L, 6L, 5L, 7L);
+    }
+
+    @Test
+    void descendingSeekContinuesWithinTiesThenMovesPastThem() {
+        assertThat(ids(seekAfterSubtotal(Sort.Direction.DESC, Sort.Direction.DESC, 4),
+                Sort.Direction.DESC, Sort.Direction.DESC))
+                .containsExactly(3L, 2L, 1L, 8L);
+    }
+
+    @Test
+    void idDirectionIsIndependentOfTheSortDirection() {
+        assertThat(ids(seekAfterSubtotal(Sort.Direction.DESC, Sort.Direction.ASC, 3),
+                Sort.Direction.DESC, Sort.Direction.ASC))
+                .containsExactly(4L, 6L, 1L, 8L);
+    }
+
+    @Test
+    void seekOnIdAloneUsesTheIdDirection() {
+        Specification<Order> after = OrderSpecification.seekAfter(
+                "id", Sort.Direction.DESC, Sort.Direction.DESC, 5L, 5L);
+
+        assertThat(ids(after, null, Sort.Direction.DESC)).containsExactly(4L, 3L, 2L, 1L);
+    }
+
+    @Test
+    void pagingThroughTiesVisitsEveryRowExactlyOnce() {
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            for (Sort.Direction idDirection : Sort.Direction.values()) {
+                List<Long> expected = ids(null, direction, idDirection);
+                List<Long> visited = new ArrayList<>();
+
+                Specification<Order> after = null;
+                while (true) {
+                    List<Long> page = ids(after, direction, idDirection).stream().limit(2).toList();
+                    if (page.isEmpty()) break;
+                    visited.addAll(page);
+                    after = seekAfterSubtotal(direction, idDirection, page.get(page.size() - 1));
+                }
+
+                assertThat(visited).as(direction + "/" + idDirection).isEqualTo(expected);
+            }
+        }
+    }
+
+    private static Specification<Order> seekAfterSubtotal(Sort.Direction direction, Sort.Direction idDirection,
+                                                          long lastId) {
+        return OrderSpecification.seekAfter("subtotal", direction, idDirection,
+                BigDecimal.valueOf(subtotalOf(lastId)), lastId);
+    }
+
+    private static long subtotalOf(long id) {
+        for (long[] row : ROWS) {
+            if (row[0] == id) return row[1];
+        }
+        throw new IllegalArgumentException("No row " + id);
+    }
+
+    /** Ids sorted by subtotal then id, or by id alone when {@code direction} is null. */
+    private static List<Long> ids(Specification<Order> spec, Sort.Direction direction, Sort.Direction idDirection) {
+        EntityManager em = sessionFactory.createEntityManager();
+        try {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Long> query = cb.createQuery(Long.class);
+            Root<Order> root = query.from(Order.class);
+            query.select(root.get("id"));
+            if (spec != null) {
+                query.where(spec.toPredicate(root, query, cb));
+            }
+            List<jakarta.persistence.criteria.Order> orderBy = new ArrayList<>();
+            if (direction != null) {
+                orderBy.add(direction.isDescending() ? cb.desc(root.get("subtotal")) : cb.asc(root.get("subtotal")));
+            }
+            orderBy.add(idDirection.isDescending() ? cb.desc(root.get("id")) : cb.asc(root.get("id")));
+            query.orderBy(orderBy);
+            return em.createQuery(query).getResultList();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.server.util;
+
+import com.example.server.enums.ImportErrorReason;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvUtilsTest {
+
+    @Test
+    void cellQuotesOnlyWhenNeeded() {
+        assertThat(CsvUtils.cell(null)).isEmpty();
+        assertThat(CsvUtils.cell("plain")).isEqualTo("plain");
+        assertThat(CsvUtils.cell("a,b")).isEqualTo("\"a,b\"");
+        assertThat(CsvUtils.cell("say \"hi\"")).isEqualTo("\"say \"\"hi\"\"\"");
+        assertThat(CsvUtils.cell("line\nbreak")).isEqualTo("\"line\nbreak\"");
+    }
+
+    @Test
+    void writeCellMatchesCell() throws IOException {
+        Object[] values = {
+                null, "", "plain", "a,b", "\"", "say \"hi\"", "line\nbreak", "cr\rlf", "\"quoted, and\r\nbroken\"",
+                42L, new BigDecimal("0.08875"), ImportErrorReason.BAD_FORMAT
+        };
+        for (Object value : values) {
+            StringWriter out = new StringWriter();
+            CsvUtils.writeCell(out, value);
+            assertThat(out.toString()).as(String.valueOf(value)).isEqualTo(CsvUtils.cell(value));
+        }
+    }
+}
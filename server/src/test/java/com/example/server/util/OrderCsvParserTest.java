@@ -0,0 +1,93 @@
+package com.example.server.util;
+
+import com.example.server.dto.order.ImportRowError;
+import com.example.server.dto.order.ImportableRow;
+import com.example.server.enums.ImportErrorReason;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class OrderCsvParserTest {
+
+    private static final String HEADER = "id,longitude,latitude,timestamp,subtotal\n";
+
+    private final OrderCsvParser parser = new OrderCsvParser();
+
+    @Test
+    void parseForImportSplitsRowsIntoChunksOfTheRequestedSize() {
+        List<OrderCsvParser.ImportChunk> chunks = new ArrayList<>();
+
+        int total = parser.parseForImport(csv(HEADER + rows(1, 5)), 2, chunks::add);
+
+        assertThat(total).isEqualTo(5);
+        assertThat(chunks).extracting(c -> c.validRows().size()).containsExactly(2, 2, 1);
+        assertThat(chunks).allSatisfy(c -> assertThat(c.errors()).isEmpty());
+        assertThat(chunks.stream().flatMap(c -> c.validRows().stream()).map(ImportableRow::getRowNumber))
+                .containsExactly(2, 3, 4, 5, 6);
+    }
+
+    @Test
+    void parseForImportDoesNotEmitAnEmptyTrailingChunk() {
+        List<OrderCsvParser.ImportChunk> chunks = new ArrayList<>();
+
+        int total = parser.parseForImport(csv(HEADER + rows(1, 4)), 2, chunks::add);
+
+        assertThat(total).isEqualTo(4);
+        assertThat(chunks).extracting(c -> c.validRows().size()).containsExactly(2, 2);
+    }
+
+    @Test
+    void parseForImportCountsRowErrorsTowardsTheChunkSize() {
+        List<OrderCsvParser.ImportChunk> chunks = new ArrayList<>();
+        String body = HEADER + rows(1, 1)
+                + "2,-73.9,95.0,2025-11-04 10:00:00,10.00\n"
+                + rows(3, 3);
+
+        int total = parser.parseForImport(csv(body), 2, chunks::add);
+
+        assertThat(total).isEqualTo(3);
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0).validRows()).extracting(ImportableRow::getRowNumber).containsExactly(2);
+        assertThat(chunks.get(0).errors()).extracting(ImportRowError::getRowNumber, ImportRowError::getReason)
+                .containsExactly(tuple(3, ImportErrorReason.INVALID_COORDINATES));
+        assertThat(chunks.get(1).validRows()).extracting(ImportableRow::getRowNumber).containsExactly(4);
+    }
+
+    @Test
+    void parseForImportStopsAtAMalformedLineAfterHandingOverEarlierChunks() {
+        List<OrderCsvParser.ImportChunk> chunks = new ArrayList<>();
+        String body = HEADER + rows(1, 3)
+                + "4,\"-73.9,40.7,2025-11-04 10:00:00,10.00\n"
+                + rows(5, 6);
+
+        int total = parser.parseForImport(csv(body), 2, chunks::add);
+
+        List<ImportRowError> errors = chunks.stream().flatMap(c -> c.errors().stream()).toList();
+        assertThat(chunks.get(0).validRows()).extracting(ImportableRow::getRowNumber).containsExactly(2, 3);
+        assertThat(chunks.stream().flatMap(c -> c.validRows().stream()).map(ImportableRow::getRowNumber))
+                .containsExactly(2, 3, 4);
+        assertThat(errors).singleElement().satisfies(e -> {
+            assertThat(e.getRowNumber()).isEqualTo(5);
+            assertThat(e.getReason()).isEqualTo(ImportErrorReason.BAD_FORMAT);
+        });
+        assertThat(total).isEqualTo(4);
+    }
+
+    private static String rows(int fromId, int toId) {
+        StringBuilder sb = new StringBuilder();
+        for (int id = fromId; id <= toId; id++) {
+            sb.append(id).append(",-73.9,40.7,2025-11-04 10:00:00,10.00\n");
+        }
+        return sb.toString();
+    }
+
+    private static MockMultipartFile csv(String body) {
+        return new MockMultipartFile("file", "orders.csv", "text/csv", body.getBytes(StandardCharsets.UTF_8));
+    }
+}
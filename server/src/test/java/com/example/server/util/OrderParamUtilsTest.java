@@ -0,0 +1,79 @@
+package com.example.server.util;
+
+import com.example.server.dto.order.OrderCursor;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderParamUtilsTest {
+
+    @Test
+    void cursorRoundTripsEverySortProperty() {
+        assertRoundTrip("id", 42L, 42L);
+        assertRoundTrip("timestamp", 1_762_250_400_000L, 17L);
+        assertRoundTrip("createdAt", Instant.parse("2026-02-01T10:15:30.123456Z"), 19L);
+        assertRoundTrip("timestamp", 0L, 20L);
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String cursor = OrderParamUtils.encodeCursor("createdAt", Instant.parse("2026-02-01T10:15:30Z"), Long.MAX_VALUE);
+
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void missingCursorDecodesToNull() {
+        assertThat(OrderParamUtils.decodeCursor(null)).isNull();
+        assertThat(OrderParamUtils.decodeCursor("  ")).isNull();
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        assertBadRequest(() -> OrderParamUtils.decodeCursor("not a cursor!"));
+        assertBadRequest(() -> OrderParamUtils.decodeCursor(encode("timestamp|1762250400000")));
+        assertBadRequest(() -> OrderParamUtils.decodeCursor(encode("timestamp|1762250400000|7|extra")));
+        assertBadRequest(() -> OrderParamUtils.decodeCursor(encode("timestamp|1762250400000|seven")));
+    }
+
+    @Test
+    void tamperedCursorValuesAreRejected() {
+        assertBadRequest(() -> OrderParamUtils.parseCursorValue("id", "ten"));
+        assertBadRequest(() -> OrderParamUtils.parseCursorValue("timestamp", "2026-02-01"));
+        assertBadRequest(() -> OrderParamUtils.parseCursorValue("createdAt", "yesterday"));
+        assertBadRequest(() -> OrderParamUtils.parseCursorValue("status", "ADDED"));
+    }
+
+    @Test
+    void onlyIndexedColumnsAreKeysetSortable() {
+        assertThat(OrderParamUtils.KEYSET_SORT_PROPERTIES).containsExactlyInAnyOrder("id", "createdAt", "timestamp");
+        assertBadRequest(() -> OrderParamUtils.parseCursorValue("subtotal", "10.00"));
+        assertBadRequest(() -> OrderParamUtils.parseCursorValue("updatedAt", "2026-02-01T00:00:00Z"));
+    }
+
+    private static void assertRoundTrip(String property, Object value, long id) {
+        OrderCursor cursor = OrderParamUtils.decodeCursor(OrderParamUtils.encodeCursor(property, value, id));
+
+        assertThat(cursor.property()).isEqualTo(property);
+        assertThat(cursor.id()).isEqualTo(id);
+        assertThat(OrderParamUtils.parseCursorValue(property, cursor.value())).isEqualTo(value);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertBadRequest(Runnable call) {
+        assertThatThrownBy(call::run)
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}